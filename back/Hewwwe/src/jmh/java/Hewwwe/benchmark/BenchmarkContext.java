@@ -0,0 +1,82 @@
+package Hewwwe.benchmark;
+
+import Hewwwe.HewwweApplication;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Application context shared by the benchmarks of a fork.
+ * <p>
+ * Starts the application with the {@code benchmark} profile (embedded H2 database) and seeds it
+ * with {@link #products} products, so every benchmark measures the real service beans
+ * against a catalog of a known size. The scale is set with {@code -p products=N} and the
+ * Hibernate JDBC batch size with {@code -p jdbcBatchSize=N} ({@code 0} disables batching).
+ */
+@State(Scope.Benchmark)
+public class BenchmarkContext {
+
+    @Param({"10000"})
+    public int products;
+
+    @Param({"50"})
+    public int jdbcBatchSize;
+
+    private ConfigurableApplicationContext context;
+    private BenchmarkSeeder seeder;
+    private BenchmarkSeeder.Data data;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(HewwweApplication.class)
+                .profiles("benchmark")
+                .logStartupInfo(false)
+                .properties("spring.jpa.properties.hibernate.jdbc.batch_size=" + jdbcBatchSize)
+                .run();
+        seeder = new BenchmarkSeeder(context);
+        data = seeder.seed(products);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * Transaction template standing in for the request-scoped session the web layer keeps open.
+     */
+    public TransactionTemplate transaction() {
+        return new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    /**
+     * Hibernate statistics of the benchmark session factory, enabled on first use.
+     */
+    public Statistics statistics() {
+        Statistics statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        return statistics;
+    }
+
+    public BenchmarkSeeder seeder() {
+        return seeder;
+    }
+
+    public BenchmarkSeeder.Data data() {
+        return data;
+    }
+}
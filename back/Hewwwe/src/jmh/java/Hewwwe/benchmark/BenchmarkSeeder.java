@@ -0,0 +1,197 @@
+package Hewwwe.benchmark;
+
+import Hewwwe.entity.Address;
+import Hewwwe.entity.Cart;
+import Hewwwe.entity.Category;
+import Hewwwe.entity.IdGenerators;
+import Hewwwe.entity.Money;
+import Hewwwe.entity.Product;
+import Hewwwe.entity.User;
+import Hewwwe.entity.enums.Rol;
+import Hewwwe.repository.AddressRepository;
+import Hewwwe.repository.CartRepository;
+import Hewwwe.repository.CategoryRepository;
+import Hewwwe.repository.ProductRepository;
+import Hewwwe.repository.UserRepository;
+import Hewwwe.services.ProductFacetIndex;
+import Hewwwe.services.ProductSearchIndex;
+import jakarta.persistence.EntityManager;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fills the benchmark database with a synthetic catalog.
+ * <p>
+ * Product names and descriptions are built from a small clothing vocabulary, so search queries
+ * match a realistic share of the catalog. A fixed random seed keeps runs comparable.
+ */
+public class BenchmarkSeeder {
+
+    private static final String[] GARMENTS = {"camiseta", "pantalon", "chaqueta", "vestido", "zapatillas",
+            "sudadera", "falda", "abrigo", "bolso", "gorra"};
+    private static final String[] COLOURS = {"negro", "blanco", "azul", "rojo", "verde", "gris", "beige", "rosa"};
+    private static final String[] SIZES = {"XS", "S", "M", "L", "XL", "U"};
+    private static final String[] CATEGORIES = {"Camisetas", "Pantalones", "Chaquetas", "Vestidos", "Calzado",
+            "Sudaderas", "Faldas", "Abrigos", "Bolsos", "Accesorios"};
+
+    private static final int PRODUCTS_PER_USER = 50;
+
+    // Rows persisted between flushes of the persistence context
+    private static final int BATCH_SIZE = 1000;
+
+    private final UserRepository userRepository;
+    private final AddressRepository addressRepository;
+    private final CategoryRepository categoryRepository;
+    private final CartRepository cartRepository;
+    private final ProductRepository productRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+
+    private final Random random = new Random(42);
+    private final List<User> users = new ArrayList<>();
+    private final List<Category> categories = new ArrayList<>();
+
+    /**
+     * IDs of the seeded rows. Carts and addresses are listed in user order, so the address
+     * at index {@code i} belongs to the owner of the cart at index {@code i}.
+     */
+    public record Data(List<Long> productIds, List<Long> cartIds, List<Long> addressIds) {
+    }
+
+    public BenchmarkSeeder(ApplicationContext context) {
+        this.userRepository = context.getBean(UserRepository.class);
+        this.addressRepository = context.getBean(AddressRepository.class);
+        this.categoryRepository = context.getBean(CategoryRepository.class);
+        this.cartRepository = context.getBean(CartRepository.class);
+        this.productRepository = context.getBean(ProductRepository.class);
+        this.productSearchIndex = context.getBean(ProductSearchIndex.class);
+        this.productFacetIndex = context.getBean(ProductFacetIndex.class);
+        this.entityManager = context.getBean(EntityManager.class);
+        this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+        this.transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    /**
+     * Seeds users (each with an address and an empty cart), categories and products,
+     * then rebuilds the in-memory product indexes.
+     *
+     * @param productCount Number of products to create
+     * @return IDs of the seeded rows
+     */
+    public Data seed(int productCount) {
+        Data data = transaction.execute(status -> {
+            List<Long> cartIds = new ArrayList<>();
+            List<Long> addressIds = new ArrayList<>();
+            for (String name : CATEGORIES) {
+                Category category = new Category();
+                category.setName(name);
+                category.setDescription("Benchmark category " + name);
+                categories.add(categoryRepository.save(category));
+            }
+
+            int userCount = Math.max(2, productCount / PRODUCTS_PER_USER);
+            for (int i = 0; i < userCount; i++) {
+                User user = new User();
+                user.setName("Benchmark User " + i);
+                user.setUsername("bench" + i);
+                user.setEmail("bench" + i + "@example.com");
+                user.setPassword("benchmark");
+                user.setPhone("600" + i);
+                user.setRole(Rol.USER);
+                user.setRegistrationDate(new Date());
+                users.add(userRepository.save(user));
+
+                Address address = new Address();
+                address.setStreet("Calle " + i);
+                address.setNumber(Integer.toString(i));
+                address.setCity("Madrid");
+                address.setCountry("España");
+                address.setPostalCode("28001");
+                address.setUser(user);
+                addressIds.add(addressRepository.save(address).getAddressId());
+
+                Cart cart = new Cart();
+                cart.setCartDate(new Date());
+                cart.setUser(user);
+                cartIds.add(cartRepository.save(cart).getCartId());
+            }
+
+            List<Long> productIds = new ArrayList<>(productCount);
+            for (int i = 0; i < productCount; i++) {
+                productIds.add(productRepository.save(newProduct(users.get(i % userCount))).getProductId());
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            return new Data(productIds, cartIds, addressIds);
+        });
+
+        productSearchIndex.rebuild();
+        productFacetIndex.rebuild();
+        return data;
+    }
+
+    /**
+     * Puts freshly created available products in a cart, so it can be checked out.
+     * The products belong to a user other than the owner of the cart.
+     *
+     * @param cartId ID of the cart to fill
+     * @param count Number of products to add
+     */
+    public void fillCart(Long cartId, int count) {
+        transaction.executeWithoutResult(status -> {
+            Cart cart = cartRepository.findById(cartId).orElseThrow();
+            User seller = users.get(0).getUserId().equals(cart.getUser().getUserId()) ? users.get(1) : users.get(0);
+            for (int i = 0; i < count; i++) {
+                Product product = newProduct(seller);
+                product.setCart(cart);
+                productRepository.save(product);
+            }
+            cartRepository.recalculateTotals(List.of(cartId));
+        });
+    }
+
+    /**
+     * Empties every table but the ID generators, so a {@code DataInitializer} run inserts all its rows again.
+     * The seeded rows are gone afterwards: only for benchmarks that need an empty database.
+     */
+    public void clear() {
+        List<String> tables = jdbcTemplate.queryForList("SELECT table_name FROM information_schema.tables "
+                + "WHERE table_schema = 'public' AND table_type = 'BASE TABLE'", String.class);
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        try {
+            tables.stream()
+                    .filter(table -> !table.equalsIgnoreCase(IdGenerators.TABLE))
+                    .forEach(table -> jdbcTemplate.execute("TRUNCATE TABLE \"" + table + "\""));
+        } finally {
+            jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY TRUE");
+        }
+    }
+
+    private Product newProduct(User owner) {
+        String garment = GARMENTS[random.nextInt(GARMENTS.length)];
+        String colour = COLOURS[random.nextInt(COLOURS.length)];
+        Product product = new Product();
+        product.setName(garment + " " + colour);
+        product.setDescription(garment + " de color " + colour + " en buen estado");
+        product.setPrice(Money.ofMinor(500 + random.nextInt(29500)));
+        product.setImage("https://example.com/" + garment + ".jpg");
+        product.setSize(SIZES[random.nextInt(SIZES.length)]);
+        product.setStatus("AVAILABLE");
+        product.setPublicationDate(new Date(System.currentTimeMillis() - random.nextInt(1_000_000_000)));
+        product.setUser(owner);
+        product.setCategory(categories.get(random.nextInt(categories.size())));
+        return product;
+    }
+}
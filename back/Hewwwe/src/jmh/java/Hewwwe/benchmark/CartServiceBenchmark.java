@@ -0,0 +1,85 @@
+package Hewwwe.benchmark;
+
+import Hewwwe.entity.Money;
+import Hewwwe.services.CartService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cart operations: total of a filled cart and full checkout (invoice creation, products marked as sold, cart cleared).
+ * <p>
+ * Each call runs in its own transaction, as it does inside a web request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CartServiceBenchmark {
+
+    @Param({"5"})
+    public int cartSize;
+
+    private CartService cartService;
+    private TransactionTemplate transaction;
+    private Long cartId;
+
+    @Setup
+    public void setUp(BenchmarkContext context) {
+        cartService = context.bean(CartService.class);
+        transaction = context.transaction();
+        cartId = context.data().cartIds().get(0);
+        context.seeder().fillCart(cartId, cartSize);
+    }
+
+    /**
+     * Cart refilled with new available products before every checkout.
+     */
+    @State(Scope.Thread)
+    public static class CheckoutState {
+
+        @Param({"5"})
+        public int checkoutSize;
+
+        private Long cartId;
+        private Map<String, Object> addressData;
+        private BenchmarkSeeder seeder;
+
+        @Setup(Level.Trial)
+        public void setUp(BenchmarkContext context) {
+            cartId = context.data().cartIds().get(1);
+            addressData = Map.of("addressId", context.data().addressIds().get(1));
+            seeder = context.seeder();
+        }
+
+        @Setup(Level.Invocation)
+        public void fill() {
+            seeder.fillCart(cartId, checkoutSize);
+        }
+    }
+
+    @Benchmark
+    public Money calculateTotal() {
+        return transaction.execute(status -> cartService.calculateTotal(cartId));
+    }
+
+    @Benchmark
+    public void checkoutCart(CheckoutState state) {
+        transaction.executeWithoutResult(status -> cartService.checkoutCart(state.cartId, state.addressData));
+    }
+}
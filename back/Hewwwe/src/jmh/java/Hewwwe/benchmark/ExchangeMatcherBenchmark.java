@@ -0,0 +1,107 @@
+package Hewwwe.benchmark;
+
+import Hewwwe.dto.ProductListingDTO;
+import Hewwwe.dto.SwapSuggestionDTO;
+import Hewwwe.entity.Category;
+import Hewwwe.entity.Money;
+import Hewwwe.entity.Product;
+import Hewwwe.entity.User;
+import Hewwwe.services.ExchangeMatcher;
+import Hewwwe.services.ProductChangedEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Swap suggestions and incremental index updates of the {@link ExchangeMatcher}.
+ * <p>
+ * Runs on a synthetic catalog loaded straight into the matcher, without a database: every user sells
+ * {@code productsPerUser} products and has {@code cartSize} products of other users in their cart.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ExchangeMatcherBenchmark {
+
+    private static final String[] SIZES = {"XS", "S", "M", "L", "XL"};
+    private static final double[] PRICES = {15, 40, 75, 150, 300};
+    private static final int CATEGORIES = 20;
+
+    @Param({"1000000"})
+    public int products;
+
+    @Param({"20"})
+    public int productsPerUser;
+
+    @Param({"3"})
+    public int cartSize;
+
+    private final ExchangeMatcher matcher = new ExchangeMatcher(null);
+
+    private int users;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        users = products / productsPerUser;
+        List<ProductListingDTO> listings = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            listings.add(new ProductListingDTO((long) i + 1, (long) (i / productsPerUser) + 1,
+                    (long) random.nextInt(CATEGORIES) + 1, SIZES[random.nextInt(SIZES.length)],
+                    Money.of(PRICES[random.nextInt(PRICES.length)]), null));
+        }
+        // Put cartSize products of other users in each user's cart
+        for (long holder = 1; holder <= users; holder++) {
+            for (int i = 0; i < cartSize; i++) {
+                int index = random.nextInt(products);
+                ProductListingDTO listing = listings.get(index);
+                if (listing.holderId() == null && !listing.ownerId().equals(holder)) {
+                    listings.set(index, new ProductListingDTO(listing.productId(), listing.ownerId(),
+                            listing.categoryId(), listing.size(), listing.price(), holder));
+                }
+            }
+        }
+        matcher.load(listings);
+    }
+
+    @Benchmark
+    public List<SwapSuggestionDTO> suggest() {
+        next = next % users + 1;
+        return matcher.suggest((long) next, 10);
+    }
+
+    @Benchmark
+    public int reindexProduct() {
+        next = next % products + 1;
+        Product product = new Product();
+        product.setProductId((long) next);
+        product.setStatus("AVAILABLE");
+        product.setSize(SIZES[next % SIZES.length]);
+        product.setPrice(Money.of(PRICES[next % PRICES.length]));
+        Category category = new Category();
+        category.setCategoryId((long) next % CATEGORIES + 1);
+        product.setCategory(category);
+        User owner = new User();
+        owner.setUserId((long) (next - 1) / productsPerUser + 1);
+        product.setUser(owner);
+        matcher.onProductChanged(ProductChangedEvent.saved(product));
+        return matcher.size();
+    }
+}
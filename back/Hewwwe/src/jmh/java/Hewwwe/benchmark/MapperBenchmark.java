@@ -0,0 +1,120 @@
+package Hewwwe.benchmark;
+
+import Hewwwe.config.AppConfig;
+import Hewwwe.dto.ExchangeResponseDTO;
+import Hewwwe.dto.ProductResponseDTO;
+import Hewwwe.entity.Category;
+import Hewwwe.entity.Exchange;
+import Hewwwe.entity.Money;
+import Hewwwe.entity.Product;
+import Hewwwe.entity.User;
+import Hewwwe.entity.enums.ExchangeStatus;
+import Hewwwe.mapper.ExchangeMapper;
+import Hewwwe.mapper.ExchangeMapperImpl;
+import Hewwwe.mapper.ProductMapper;
+import Hewwwe.mapper.ProductMapperImpl;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping: the {@code AppConfig.modelMapper()} bean against the generated MapStruct mappers.
+ * <p>
+ * Runs on in-memory entity graphs, without a database, so only the mapping cost is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+
+    @Param({"2", "10"})
+    public int productsPerExchange;
+
+    private final ModelMapper modelMapper = new AppConfig().modelMapper();
+    private final ProductMapper productMapper = new ProductMapperImpl();
+    private final ExchangeMapper exchangeMapper = new ExchangeMapperImpl(productMapper);
+
+    private Product product;
+    private Exchange exchange;
+
+    @Setup
+    public void setUp() {
+        Category category = new Category();
+        category.setCategoryId(1L);
+        category.setName("Camisetas");
+        User owner = user(1L, "Alice");
+        User requester = user(2L, "Bob");
+
+        exchange = new Exchange();
+        exchange.setExchangeId(1L);
+        exchange.setStatus(ExchangeStatus.PENDING);
+        exchange.setExchangeDate(new Date());
+        exchange.setOwner(owner);
+        exchange.setRequester(requester);
+
+        List<Product> products = new ArrayList<>();
+        for (long i = 1; i <= productsPerExchange; i++) {
+            Product p = new Product();
+            p.setProductId(i);
+            p.setName("camiseta azul " + i);
+            p.setDescription("camiseta de color azul en buen estado");
+            p.setPrice(Money.of(19.99));
+            p.setImage("https://example.com/camiseta.jpg");
+            p.setSize("M");
+            p.setStatus("AVAILABLE");
+            p.setPublicationDate(new Date());
+            p.setUser(i % 2 == 0 ? owner : requester);
+            p.setCategory(category);
+            p.getExchanges().add(exchange);
+            products.add(p);
+        }
+        exchange.setProducts(products);
+        product = products.get(0);
+    }
+
+    private static User user(Long id, String name) {
+        User user = new User();
+        user.setUserId(id);
+        user.setName(name);
+        user.setUsername(name.toLowerCase());
+        user.setEmail(name.toLowerCase() + "@example.com");
+        return user;
+    }
+
+    @Benchmark
+    public ProductResponseDTO modelMapperProduct() {
+        return modelMapper.map(product, ProductResponseDTO.class);
+    }
+
+    @Benchmark
+    public ProductResponseDTO mapStructProduct() {
+        return productMapper.toResponse(product);
+    }
+
+    @Benchmark
+    public ExchangeResponseDTO modelMapperExchange() {
+        return modelMapper.map(exchange, ExchangeResponseDTO.class);
+    }
+
+    @Benchmark
+    public ExchangeResponseDTO mapStructExchange() {
+        return exchangeMapper.toResponse(exchange);
+    }
+}
@@ -0,0 +1,57 @@
+package Hewwwe.benchmark;
+
+import Hewwwe.dto.ProductPageDTO;
+import Hewwwe.dto.ProductResponseDTO;
+import Hewwwe.services.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Product reads: single product lookup (entity to DTO mapping), full-text search and the first catalog page.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ProductServiceBenchmark {
+
+    private static final String[] QUERIES = {"camiseta", "cami", "chaqueta negro", "zapatillas azul", "bolso"};
+
+    private ProductService productService;
+    private List<Long> productIds;
+    private int next;
+
+    @Setup
+    public void setUp(BenchmarkContext context) {
+        productService = context.bean(ProductService.class);
+        productIds = context.data().productIds();
+    }
+
+    @Benchmark
+    public ProductResponseDTO findById() {
+        return productService.findById(productIds.get(next++ % productIds.size()));
+    }
+
+    @Benchmark
+    public List<ProductResponseDTO> searchProducts() {
+        return productService.searchProducts(QUERIES[next++ % QUERIES.length], 0, 50);
+    }
+
+    @Benchmark
+    public ProductPageDTO findAvailablePage() {
+        return productService.findAvailablePage(null, 20);
+    }
+}
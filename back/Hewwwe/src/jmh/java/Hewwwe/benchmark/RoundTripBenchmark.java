@@ -0,0 +1,130 @@
+package Hewwwe.benchmark;
+
+import Hewwwe.config.DataInitializer;
+import Hewwwe.services.CartService;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JDBC round trips of the multi-row write paths: filling a cart with new products and checking it out,
+ * checking out an already filled cart, and a full {@link DataInitializer} run against an empty database.
+ * <p>
+ * Besides the time per call, the {@code statements} counter reports how many JDBC statements Hibernate
+ * prepared, which drops once inserts and updates are batched. Compare before and after with
+ * {@code -p jdbcBatchSize=0,50}. The cart filling and the emptying of the database happen in
+ * per-invocation setups and are not measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RoundTripBenchmark {
+
+    @Param({"20"})
+    public int rows;
+
+    private CartService cartService;
+    private TransactionTemplate transaction;
+    private BenchmarkSeeder seeder;
+    private Statistics statistics;
+    private Long cartId;
+    private Map<String, Object> addressData;
+    private DataInitializer dataInitializer;
+
+    /**
+     * JDBC statements prepared and calls made during the iteration; their ratio is the round trips per call.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Statements {
+
+        public long statements;
+        public long calls;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            statements = 0;
+            calls = 0;
+        }
+
+        void record(long count) {
+            calls++;
+            statements += count;
+        }
+    }
+
+    /**
+     * Fills the cart before every checkout-only invocation.
+     */
+    @State(Scope.Thread)
+    public static class FilledCart {
+
+        @Setup(Level.Invocation)
+        public void fill(RoundTripBenchmark benchmark) {
+            benchmark.seeder.fillCart(benchmark.cartId, benchmark.rows);
+        }
+    }
+
+    /**
+     * Empties the database before every {@link DataInitializer} invocation, so the run inserts its rows.
+     */
+    @State(Scope.Thread)
+    public static class EmptyDatabase {
+
+        @Setup(Level.Invocation)
+        public void clear(BenchmarkContext context) {
+            context.seeder().clear();
+        }
+    }
+
+    @Setup
+    public void setUp(BenchmarkContext context) {
+        cartService = context.bean(CartService.class);
+        transaction = context.transaction();
+        seeder = context.seeder();
+        statistics = context.statistics();
+        cartId = context.data().cartIds().get(1);
+        addressData = Map.of("addressId", context.data().addressIds().get(1));
+        dataInitializer = context.bean(DataInitializer.class);
+    }
+
+    @Benchmark
+    public void fillAndCheckout(Statements counter) {
+        long before = statistics.getPrepareStatementCount();
+        seeder.fillCart(cartId, rows);
+        transaction.executeWithoutResult(status -> cartService.checkoutCart(cartId, addressData));
+        counter.record(statistics.getPrepareStatementCount() - before);
+    }
+
+    @Benchmark
+    public void checkout(FilledCart cart, Statements counter) {
+        long before = statistics.getPrepareStatementCount();
+        transaction.executeWithoutResult(status -> cartService.checkoutCart(cartId, addressData));
+        counter.record(statistics.getPrepareStatementCount() - before);
+    }
+
+    @Benchmark
+    public void dataInitializerRun(EmptyDatabase database, Statements counter) {
+        long before = statistics.getPrepareStatementCount();
+        dataInitializer.run();
+        counter.record(statistics.getPrepareStatementCount() - before);
+    }
+}
@@ -20,7 +20,8 @@ public class AppConfig {
     /**
      * Creates and configures a {@link ModelMapper} bean.
      * <p>
-     * ModelMapper is used to convert between DTOs and entity classes.
+     * ModelMapper is used to convert between DTOs and entity classes for users, addresses and categories.
+     * Products, exchanges, invoices and carts use the MapStruct mappers in {@code Hewwwe.mapper}.
      *
      * @return a configured instance of {@link ModelMapper}
      */
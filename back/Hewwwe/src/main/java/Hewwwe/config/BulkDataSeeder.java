@@ -0,0 +1,390 @@
+package Hewwwe.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates a large synthetic dataset for load and capacity testing.
+ * <p>
+ * Only active with the {@code seed} profile, after {@link DataInitializer}. It adds {@code hewwwe.seed.users}
+ * users, each with one or two addresses and a cart, and on average {@code hewwwe.seed.products-per-user}
+ * products per user (a few heavy sellers, many occasional ones). Part of the products are sold and
+ * grouped into invoices, some sit in other users' carts and some take part in exchanges.
+ * <p>
+ * Rows are written with batched JDBC inserts and explicit IDs, one transaction per chunk of users,
+ * bypassing JPA entirely; the ID generators are moved past the seeded rows afterwards.
+ * Configuration lives in {@code application-seed.properties}.
+ */
+@Component
+@Profile("seed")
+@Order(Ordered.LOWEST_PRECEDENCE)
+@RequiredArgsConstructor
+@Slf4j
+public class BulkDataSeeder implements CommandLineRunner {
+
+    private static final String INSERT_USER = "INSERT INTO user (user_id, name, email, phone, role, registration_date, "
+            + "password, username, is_active, last_login_date) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_ADDRESS = "INSERT INTO address (address_id, street, number, city, country, "
+            + "postal_code, user_id) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_CART = "INSERT INTO cart (cart_id, cart_date, user_id, version, total_minor, item_count) "
+            + "VALUES (?, ?, ?, 0, 0, 0)";
+    private static final String INSERT_INVOICE = "INSERT INTO invoice (invoice_id, invoice_date, total_amount_minor, "
+            + "address_id, user_id, version) VALUES (?, ?, ?, ?, ?, 0)";
+    private static final String INSERT_PRODUCT = "INSERT INTO product (product_id, name, description, price_minor, image, "
+            + "size, status, publication_date, user_id, category_id, cart_id, invoice_id, version) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+    private static final String INSERT_EXCHANGE = "INSERT INTO exchange (exchange_id, status, exchange_date, "
+            + "completion_date, requester_id, owner_id, version) VALUES (?, ?, ?, ?, ?, ?, 0)";
+    private static final String INSERT_EXCHANGE_PRODUCT = "INSERT INTO exchange_products (exchange_id, product_id) "
+            + "VALUES (?, ?)";
+
+    private static final String[] FIRST_NAMES = {"Lucia", "Hugo", "Martina", "Mateo", "Sofia", "Leo", "Julia",
+            "Daniel", "Paula", "Pablo", "Valeria", "Alvaro", "Carmen", "Marcos", "Elena", "Diego"};
+    private static final String[] CITIES = {"Madrid", "Barcelona", "Valencia", "Sevilla", "Zaragoza", "Malaga",
+            "Bilbao", "Murcia", "Alicante", "Vigo"};
+    private static final String[] GARMENTS = {"Camiseta", "Sudadera", "Pantalon", "Vaqueros", "Chaqueta", "Abrigo",
+            "Vestido", "Falda", "Zapatillas", "Botas", "Bolso", "Gorra"};
+    private static final String[] COLOURS = {"negro", "blanco", "azul", "rojo", "verde", "gris", "beige", "rosa",
+            "marron", "amarillo"};
+    private static final String[] BRANDS = {"Zara", "Mango", "Nike", "Adidas", "Levi's", "H&M", "Pull&Bear",
+            "Bershka", "Vans", "Converse"};
+    private static final String[] CONDITIONS = {"nuevo con etiqueta", "como nuevo", "en buen estado", "con poco uso",
+            "usado"};
+    private static final String[] SIZES = {"XS", "S", "M", "L", "XL", "36", "38", "40", "42", "U"};
+
+    // Share of products already sold and share of available products sitting in someone else's cart
+    private static final double SOLD_SHARE = 0.2;
+    private static final double IN_CART_SHARE = 0.1;
+
+    // Exchanges proposed per user, and how they ended
+    private static final double EXCHANGES_PER_USER = 0.25;
+    private static final double ACCEPTED_SHARE = 0.25;
+    private static final double REJECTED_SHARE = 0.15;
+
+    private static final int MAX_PRODUCTS_PER_INVOICE = 3;
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final PasswordEncoder passwordEncoder;
+    private final IdGeneratorInitializer idGenerators;
+
+    @Value("${hewwwe.seed.users:1000}")
+    private int userCount;
+
+    @Value("${hewwwe.seed.products-per-user:20}")
+    private int productsPerUser;
+
+    @Value("${hewwwe.seed.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${hewwwe.seed.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${hewwwe.seed.random-seed:42}")
+    private long randomSeed;
+
+    @Value("${hewwwe.seed.password:user123}")
+    private String password;
+
+    /**
+     * Next free ID of every table, reserved past the current maximum and the generator value when seeding starts.
+     */
+    private static final class Ids {
+        long user;
+        long address;
+        long cart;
+        long invoice;
+        long product;
+        long exchange;
+    }
+
+    /**
+     * Product being generated; status, cart and invoice may still change before it is inserted.
+     */
+    private static final class ProductRow {
+        long productId;
+        String name;
+        String description;
+        long priceMinor;
+        String image;
+        String size;
+        String status = "AVAILABLE";
+        long publicationDate;
+        long userId;
+        long categoryId;
+        Long cartId;
+        Long invoiceId;
+
+        Object[] toArgs() {
+            return new Object[]{productId, name, description, priceMinor, image, size, status,
+                    new Timestamp(publicationDate), userId, categoryId, cartId, invoiceId};
+        }
+    }
+
+    /**
+     * Invoice being filled with the products bought by one user.
+     */
+    private static final class InvoiceRow {
+        long invoiceId;
+        long invoiceDate;
+        long totalAmountMinor;
+        long addressId;
+        long userId;
+        int capacity;
+        int size;
+
+        Object[] toArgs() {
+            return new Object[]{invoiceId, new Timestamp(invoiceDate), totalAmountMinor, addressId, userId};
+        }
+    }
+
+    /**
+     * Rows generated for one chunk of users, inserted together in a single transaction.
+     */
+    private static final class Chunk {
+        final List<Object[]> users = new ArrayList<>();
+        final List<Object[]> addresses = new ArrayList<>();
+        final List<Object[]> carts = new ArrayList<>();
+        final List<InvoiceRow> invoices = new ArrayList<>();
+        final List<ProductRow> products = new ArrayList<>();
+        final List<Object[]> exchanges = new ArrayList<>();
+        final List<Object[]> exchangeProducts = new ArrayList<>();
+
+        long rowCount() {
+            return (long) users.size() + addresses.size() + carts.size() + invoices.size() + products.size()
+                    + exchanges.size() + exchangeProducts.size();
+        }
+    }
+
+    /**
+     * Seeds the database once the application context is ready.
+     *
+     * @param args command-line arguments passed to the application
+     */
+    @Override
+    public void run(String... args) {
+        long start = System.currentTimeMillis();
+        List<Long> categoryIds = jdbcTemplate.queryForList("SELECT category_id FROM category", Long.class);
+        if (categoryIds.isEmpty()) {
+            throw new IllegalStateException("No categories found to seed products into");
+        }
+
+        Ids ids = reserveIds();
+        // Hashing once: BCrypt per row would dominate the run
+        String passwordHash = passwordEncoder.encode(password);
+        Random random = new Random(randomSeed);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        long rows = 0;
+        for (int first = 0; first < userCount; first += chunkSize) {
+            Chunk chunk = generate(Math.min(chunkSize, userCount - first), ids, categoryIds, passwordHash, random);
+            transaction.executeWithoutResult(status -> insert(chunk));
+            rows += chunk.rowCount();
+        }
+        releaseIds(ids);
+
+        log.info("Inserted {} rows for {} users in {} ms", rows, userCount, System.currentTimeMillis() - start);
+    }
+
+    private Chunk generate(int users, Ids ids, List<Long> categoryIds, String passwordHash, Random random) {
+        Chunk chunk = new Chunk();
+        long now = System.currentTimeMillis();
+        long[] userIds = new long[users];
+        long[] addressIds = new long[users];
+        long[] cartIds = new long[users];
+
+        for (int i = 0; i < users; i++) {
+            long userId = ids.user++;
+            userIds[i] = userId;
+            String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String username = firstName.toLowerCase() + userId;
+            chunk.users.add(new Object[]{userId, firstName + " " + userId, username + "@example.com",
+                    "6" + String.format("%08d", userId % 100_000_000), "USER",
+                    new Timestamp(now - random.nextInt(3 * 365) * DAY_MILLIS), passwordHash, username, true, null});
+
+            int addresses = random.nextInt(4) == 0 ? 2 : 1;
+            for (int a = 0; a < addresses; a++) {
+                long addressId = ids.address++;
+                if (a == 0) {
+                    addressIds[i] = addressId;
+                }
+                chunk.addresses.add(new Object[]{addressId, "Calle " + (1 + random.nextInt(200)),
+                        Integer.toString(1 + random.nextInt(150)), CITIES[random.nextInt(CITIES.length)], "España",
+                        String.format("%05d", 1000 + random.nextInt(51000)), userId});
+            }
+
+            cartIds[i] = ids.cart++;
+            chunk.carts.add(new Object[]{cartIds[i], new Timestamp(now), userId});
+        }
+
+        // Available products of every seller, candidates for carts and exchanges
+        List<List<ProductRow>> available = new ArrayList<>(users);
+        Map<Integer, InvoiceRow> openInvoices = new HashMap<>();
+        for (int seller = 0; seller < users; seller++) {
+            List<ProductRow> sellerAvailable = new ArrayList<>();
+            available.add(sellerAvailable);
+            int products = productCount(random);
+            for (int p = 0; p < products; p++) {
+                ProductRow product = newProduct(ids.product++, userIds[seller], categoryIds, random, now);
+                chunk.products.add(product);
+
+                double roll = random.nextDouble();
+                if (users > 1 && roll < SOLD_SHARE) {
+                    int buyer = otherUser(seller, users, random);
+                    InvoiceRow invoice = openInvoices.get(buyer);
+                    if (invoice == null || invoice.size == invoice.capacity) {
+                        invoice = new InvoiceRow();
+                        invoice.invoiceId = ids.invoice++;
+                        invoice.userId = userIds[buyer];
+                        invoice.addressId = addressIds[buyer];
+                        invoice.capacity = 1 + random.nextInt(MAX_PRODUCTS_PER_INVOICE);
+                        openInvoices.put(buyer, invoice);
+                        chunk.invoices.add(invoice);
+                    }
+                    product.status = "SOLD";
+                    product.invoiceId = invoice.invoiceId;
+                    invoice.totalAmountMinor += product.priceMinor;
+                    invoice.invoiceDate = Math.max(invoice.invoiceDate,
+                            Math.min(now, product.publicationDate + random.nextInt(30) * DAY_MILLIS));
+                    invoice.size++;
+                } else if (users > 1 && roll < SOLD_SHARE + IN_CART_SHARE) {
+                    product.cartId = cartIds[otherUser(seller, users, random)];
+                } else {
+                    sellerAvailable.add(product);
+                }
+            }
+        }
+
+        int exchanges = (int) Math.round(users * EXCHANGES_PER_USER);
+        for (int e = 0; e < exchanges && users > 1; e++) {
+            int owner = random.nextInt(users);
+            int requester = otherUser(owner, users, random);
+            if (available.get(owner).isEmpty() || available.get(requester).isEmpty()) {
+                continue;
+            }
+            ProductRow ownerProduct = take(available.get(owner), random);
+            ProductRow requesterProduct = take(available.get(requester), random);
+            long exchangeId = ids.exchange++;
+            long exchangeDate = Math.max(ownerProduct.publicationDate, requesterProduct.publicationDate);
+
+            double roll = random.nextDouble();
+            String status;
+            // As in the service, only COMPLETED exchanges have a completion date, and none is seeded
+            Timestamp completionDate = null;
+            if (roll < ACCEPTED_SHARE) {
+                status = "ACCEPTED";
+                ownerProduct.status = "SOLD";
+                requesterProduct.status = "SOLD";
+            } else if (roll < ACCEPTED_SHARE + REJECTED_SHARE) {
+                status = "REJECTED";
+            } else {
+                status = "PENDING";
+            }
+            chunk.exchanges.add(new Object[]{exchangeId, status, new Timestamp(exchangeDate), completionDate,
+                    userIds[requester], userIds[owner]});
+            chunk.exchangeProducts.add(new Object[]{exchangeId, ownerProduct.productId});
+            chunk.exchangeProducts.add(new Object[]{exchangeId, requesterProduct.productId});
+        }
+        return chunk;
+    }
+
+    private ProductRow newProduct(long productId, long userId, List<Long> categoryIds, Random random, long now) {
+        String garment = GARMENTS[random.nextInt(GARMENTS.length)];
+        String colour = COLOURS[random.nextInt(COLOURS.length)];
+        String brand = BRANDS[random.nextInt(BRANDS.length)];
+        ProductRow product = new ProductRow();
+        product.productId = productId;
+        product.name = garment + " " + brand + " " + colour;
+        product.description = garment + " de " + brand + " en color " + colour + ", "
+                + CONDITIONS[random.nextInt(CONDITIONS.length)];
+        // Log-normal prices in cents: most items are cheap, a few are expensive
+        product.priceMinor = Math.max(100, Math.round(Math.exp(3.0 + 0.8 * random.nextGaussian()) * 100));
+        product.image = "https://example.com/images/" + productId + ".jpg";
+        product.size = SIZES[random.nextInt(SIZES.length)];
+        product.publicationDate = now - (long) (random.nextDouble() * 365 * DAY_MILLIS);
+        product.userId = userId;
+        product.categoryId = categoryIds.get(random.nextInt(categoryIds.size()));
+        return product;
+    }
+
+    /**
+     * Number of products listed by one user: exponential with the configured mean,
+     * so a few users sell a lot and most sell little.
+     */
+    private int productCount(Random random) {
+        double count = -productsPerUser * Math.log(1 - random.nextDouble());
+        return (int) Math.min(10L * productsPerUser, Math.round(count));
+    }
+
+    private static int otherUser(int user, int users, Random random) {
+        int other = random.nextInt(users - 1);
+        return other >= user ? other + 1 : other;
+    }
+
+    private static ProductRow take(List<ProductRow> products, Random random) {
+        int index = random.nextInt(products.size());
+        ProductRow product = products.get(index);
+        products.set(index, products.get(products.size() - 1));
+        products.remove(products.size() - 1);
+        return product;
+    }
+
+    private void insert(Chunk chunk) {
+        // Parents before children, so foreign keys are satisfied
+        batchInsert(INSERT_USER, chunk.users);
+        batchInsert(INSERT_ADDRESS, chunk.addresses);
+        batchInsert(INSERT_CART, chunk.carts);
+        batchInsert(INSERT_INVOICE, chunk.invoices.stream().map(InvoiceRow::toArgs).toList());
+        batchInsert(INSERT_PRODUCT, chunk.products.stream().map(ProductRow::toArgs).toList());
+        batchInsert(INSERT_EXCHANGE, chunk.exchanges);
+        batchInsert(INSERT_EXCHANGE_PRODUCT, chunk.exchangeProducts);
+    }
+
+    private void batchInsert(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(rows.size(), from + batchSize)));
+        }
+    }
+
+    private Ids reserveIds() {
+        Ids ids = new Ids();
+        ids.user = idGenerators.nextFreeId("user");
+        ids.address = idGenerators.nextFreeId("address");
+        ids.cart = idGenerators.nextFreeId("cart");
+        ids.invoice = idGenerators.nextFreeId("invoice");
+        ids.product = idGenerators.nextFreeId("product");
+        ids.exchange = idGenerators.nextFreeId("exchange");
+        return ids;
+    }
+
+    /**
+     * Moves the ID generators past the explicit IDs used, so JPA inserts do not collide with seeded rows.
+     */
+    private void releaseIds(Ids ids) {
+        idGenerators.advancePast("user", ids.user - 1);
+        idGenerators.advancePast("address", ids.address - 1);
+        idGenerators.advancePast("cart", ids.cart - 1);
+        idGenerators.advancePast("invoice", ids.invoice - 1);
+        idGenerators.advancePast("product", ids.product - 1);
+        idGenerators.advancePast("exchange", ids.exchange - 1);
+    }
+}
@@ -0,0 +1,25 @@
+package Hewwwe.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables Spring's annotation-driven caching.
+ * <p>
+ * The cache manager itself is auto-configured by Spring Boot on top of Caffeine;
+ * cache names, size bounds and TTL are set in {@code application.properties}.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    /**
+     * Cache of single categories, keyed by category ID.
+     */
+    public static final String CATEGORIES = "categories";
+
+    /**
+     * Cache holding the full category list under a single key.
+     */
+    public static final String CATEGORY_LIST = "categoryList";
+}
@@ -1,10 +1,12 @@
 package Hewwwe.config;
 
 import Hewwwe.entity.*;
+import Hewwwe.entity.enums.ExchangeStatus;
 import Hewwwe.entity.enums.Rol;
 import Hewwwe.repository.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
@@ -18,6 +20,7 @@ import java.util.List;
  * with users, addresses, categories, carts, and products if the respective tables are empty.
  */
 @Component
+@Order(0)
 @RequiredArgsConstructor
 public class DataInitializer implements CommandLineRunner {
 
@@ -198,16 +201,17 @@ public class DataInitializer implements CommandLineRunner {
     private Invoice createInvoice(User user, Address address, double totalAmount) {
         Invoice invoice = new Invoice();
         invoice.setInvoiceDate(java.util.Date.from(LocalDateTime.now().atZone(java.time.ZoneId.systemDefault()).toInstant()));
-        invoice.setTotalAmount(totalAmount);
+        invoice.setTotalAmount(Money.of(totalAmount));
         invoice.setUser(user);
         invoice.setAddress(address);
+        invoice.snapshotCustomer();
         return invoiceRepository.save(invoice);
     }
 
     private Exchange createExchange(User owner, User requester, String status, List<Product> products) {
         Exchange exchange = new Exchange();
         exchange.setExchangeDate(java.util.Date.from(LocalDateTime.now().atZone(java.time.ZoneId.systemDefault()).toInstant()));
-        exchange.setStatus(status);
+        exchange.setStatus(ExchangeStatus.valueOf(status));
         exchange.setOwner(owner);
         exchange.setRequester(requester);
         if (status.equals("COMPLETED")) {
@@ -243,7 +247,7 @@ public class DataInitializer implements CommandLineRunner {
         Product product = new Product();
         product.setName(name);
         product.setDescription(description);
-        product.setPrice(price);
+        product.setPrice(Money.of(price));
         product.setSize(size);
         product.setImage(image);
         product.setStatus(status);
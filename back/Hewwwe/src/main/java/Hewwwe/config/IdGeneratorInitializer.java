@@ -0,0 +1,105 @@
+package Hewwwe.config;
+
+import Hewwwe.entity.IdGenerators;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the ID generator table ahead of the IDs already stored in the entity tables.
+ * <p>
+ * Databases created before the switch from {@code IDENTITY} columns, or filled with explicit IDs
+ * (see {@link BulkDataSeeder}), contain rows the generator does not know about. Before anything
+ * else is inserted, every generator row is moved past the highest ID of its table.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class IdGeneratorInitializer implements CommandLineRunner {
+
+    // Generator key (also the table name) -> ID column
+    private static final Map<String, String> ID_COLUMNS = Map.of(
+            "user", "user_id",
+            "address", "address_id",
+            "category", "category_id",
+            "cart", "cart_id",
+            "invoice", "invoice_id",
+            "invoice_line", "line_id",
+            "product", "product_id",
+            "exchange", "exchange_id");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Aligns every generator with its table at startup.
+     *
+     * @param args command-line arguments passed to the application
+     */
+    @Override
+    public void run(String... args) {
+        ID_COLUMNS.forEach((table, column) -> advancePast(table, maxId(table)));
+    }
+
+    /**
+     * Returns the next ID that is free both in the table and in the generator,
+     * for callers that insert rows with explicit IDs.
+     *
+     * @param table Entity table, also the generator key
+     * @return First ID that can be used
+     */
+    public long nextFreeId(String table) {
+        return Math.max(maxId(table), nextValue(table)) + 1;
+    }
+
+    /**
+     * Locks the generator row of a table until the current transaction ends, so no ID block
+     * can be allocated from it meanwhile. Must be called inside a transaction.
+     *
+     * @param table Entity table, also the generator key
+     */
+    public void lock(String table) {
+        jdbcTemplate.queryForList("SELECT " + IdGenerators.VALUE_COLUMN + " FROM " + IdGenerators.TABLE
+                + " WHERE " + IdGenerators.KEY_COLUMN + " = ? FOR UPDATE", Long.class, table);
+    }
+
+    /**
+     * Makes sure the generator of a table never hands out an ID lower than or equal to the given one.
+     * With the pooled optimizer a stored value {@code v} yields IDs above {@code v - allocationSize},
+     * so the value is moved a full block past the ID.
+     *
+     * @param table Entity table, also the generator key
+     * @param id Highest ID already in use
+     */
+    public void advancePast(String table, long id) {
+        long value = id + 1 + IdGenerators.ALLOCATION_SIZE;
+        int updated = jdbcTemplate.update("UPDATE " + IdGenerators.TABLE + " SET " + IdGenerators.VALUE_COLUMN
+                + " = ? WHERE " + IdGenerators.KEY_COLUMN + " = ? AND " + IdGenerators.VALUE_COLUMN + " < ?",
+                value, table, value);
+        if (updated == 0 && nextValueOrNull(table) == null) {
+            jdbcTemplate.update("INSERT INTO " + IdGenerators.TABLE + " (" + IdGenerators.KEY_COLUMN + ", "
+                    + IdGenerators.VALUE_COLUMN + ") VALUES (?, ?)", table, value);
+        }
+    }
+
+    private long maxId(String table) {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(" + ID_COLUMNS.get(table) + ") FROM " + table, Long.class);
+        return max != null ? max : 0;
+    }
+
+    private long nextValue(String table) {
+        Long value = nextValueOrNull(table);
+        return value != null ? value : 0;
+    }
+
+    private Long nextValueOrNull(String table) {
+        List<Long> values = jdbcTemplate.queryForList("SELECT " + IdGenerators.VALUE_COLUMN + " FROM "
+                + IdGenerators.TABLE + " WHERE " + IdGenerators.KEY_COLUMN + " = ?", Long.class, table);
+        return values.isEmpty() ? null : values.get(0);
+    }
+}
@@ -0,0 +1,46 @@
+package Hewwwe.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Snapshots the customer and shipping address of invoices created before the snapshot existed.
+ * <p>
+ * Invoices created before then, and those written by {@link BulkDataSeeder}, only point to their user
+ * and address. Once every startup runner has finished, their current name, email and address are copied
+ * onto the invoice in a single statement, formatted as {@code Invoice.format} does, and the version is
+ * bumped so no document rendered from the live values is served again. Invoices already snapshotted are left alone.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class InvoiceCustomerMigration {
+
+    private static final String SNAPSHOT_CUSTOMERS = "UPDATE invoice i SET "
+            + "customer_name = (SELECT COALESCE(u.name, '') FROM user u WHERE u.user_id = i.user_id), "
+            + "customer_email = (SELECT COALESCE(u.email, '') FROM user u WHERE u.user_id = i.user_id), "
+            + "shipping_address = (SELECT CONCAT(COALESCE(a.street, ''), ' ', COALESCE(a.number, ''), ', ', "
+            + "COALESCE(a.postal_code, ''), ' ', COALESCE(a.city, ''), ' (', COALESCE(a.country, ''), ')') "
+            + "FROM address a WHERE a.address_id = i.address_id), "
+            + "version = version + 1 "
+            + "WHERE i.customer_name IS NULL AND EXISTS (SELECT 1 FROM user u WHERE u.user_id = i.user_id)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Copies the missing snapshots at startup.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void migrate() {
+        int updated = jdbcTemplate.update(SNAPSHOT_CUSTOMERS);
+        if (updated > 0) {
+            log.info("Snapshotted the customer of {} invoices", updated);
+        }
+    }
+}
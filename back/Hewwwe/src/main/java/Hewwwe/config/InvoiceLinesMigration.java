@@ -0,0 +1,61 @@
+package Hewwwe.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Creates the lines of invoices that only point to their products through {@code product.invoice_id}.
+ * <p>
+ * Invoices created before lines existed, and those written by {@link DataInitializer} and
+ * {@link BulkDataSeeder}, have no {@code invoice_line} rows. Once every startup runner has finished,
+ * each of them gets one line per product, copied from the current product rows in a single statement.
+ * Invoices that already have lines are left alone.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class InvoiceLinesMigration {
+
+    // %d is the ID before the first line: the copied rows are numbered after it
+    private static final String INSERT_MISSING_LINES = "INSERT INTO invoice_line (line_id, invoice_id, product_id, "
+            + "product_name, size, price_minor, seller_id, seller_name) "
+            + "SELECT %d + ROW_NUMBER() OVER (ORDER BY p.invoice_id, p.product_id), p.invoice_id, p.product_id, "
+            + "p.name, p.size, COALESCE(p.price_minor, 0), u.user_id, u.username "
+            + "FROM product p LEFT JOIN user u ON u.user_id = p.user_id "
+            + "WHERE p.invoice_id IS NOT NULL "
+            + "AND NOT EXISTS (SELECT 1 FROM invoice_line l WHERE l.invoice_id = p.invoice_id)";
+
+    private static final String COUNT_MISSING_LINES = "SELECT COUNT(*) FROM product p WHERE p.invoice_id IS NOT NULL "
+            + "AND NOT EXISTS (SELECT 1 FROM invoice_line l WHERE l.invoice_id = p.invoice_id)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final IdGeneratorInitializer idGenerators;
+
+    /**
+     * Copies the missing lines at startup.
+     * The server is already taking requests, so the range of IDs is reserved before the rows are inserted:
+     * the generator row stays locked until the transaction commits and is moved past the range first,
+     * so a checkout allocating line IDs meanwhile waits and then gets IDs after it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void migrate() {
+        idGenerators.lock("invoice_line");
+        Long missing = jdbcTemplate.queryForObject(COUNT_MISSING_LINES, Long.class);
+        if (missing == null || missing == 0) {
+            return;
+        }
+        // Explicit IDs above both the table and its generator
+        long firstId = idGenerators.nextFreeId("invoice_line");
+        idGenerators.advancePast("invoice_line", firstId - 1 + missing);
+        int created = jdbcTemplate.update(String.format(INSERT_MISSING_LINES, firstId - 1));
+        // Still under the lock: covers rows that became missing between the count and the insert
+        idGenerators.advancePast("invoice_line", firstId - 1 + created);
+        log.info("Created {} invoice lines from sold products", created);
+    }
+}
@@ -0,0 +1,68 @@
+package Hewwwe.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.Map;
+
+/**
+ * Copies the amounts of databases created before prices and totals were stored as minor units.
+ * <p>
+ * The schema is only ever extended, so the old decimal columns are still there next to the new
+ * {@code *_minor} ones. Rows whose amount has not been copied yet get it converted to cents;
+ * on a database without the old columns there is nothing to do.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@RequiredArgsConstructor
+@Slf4j
+public class MoneyColumnsMigration implements CommandLineRunner {
+
+    // Table -> old decimal column, new minor-unit column
+    private static final Map<String, String[]> COLUMNS = Map.of(
+            "product", new String[]{"price", "price_minor"},
+            "invoice", new String[]{"total_amount", "total_amount_minor"});
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Copies the legacy amounts at startup.
+     *
+     * @param args command-line arguments passed to the application
+     */
+    @Override
+    public void run(String... args) {
+        COLUMNS.forEach((table, columns) -> {
+            if (!hasColumn(table, columns[0])) {
+                // No legacy column: the database was created with minor units
+                return;
+            }
+            int copied = jdbcTemplate.update("UPDATE " + table + " SET " + columns[1] + " = ROUND(" + columns[0]
+                    + " * 100) WHERE " + columns[1] + " IS NULL AND " + columns[0] + " IS NOT NULL");
+            if (copied > 0) {
+                log.info("Converted {} {} amounts to cents", copied, table);
+            }
+        });
+    }
+
+    // Looks the column up in the JDBC metadata, with the identifier case the database stores
+    private boolean hasColumn(String table, String column) {
+        Boolean found = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            boolean upperCase = metaData.storesUpperCaseIdentifiers();
+            try (ResultSet columns = metaData.getColumns(connection.getCatalog(), null,
+                    upperCase ? table.toUpperCase() : table, upperCase ? column.toUpperCase() : column)) {
+                return columns.next();
+            }
+        });
+        return Boolean.TRUE.equals(found);
+    }
+}
@@ -0,0 +1,12 @@
+package Hewwwe.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables {@code @Scheduled} background jobs, such as releasing expired cart reservations.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -75,6 +75,10 @@ public class SecurityConfig {
                 .sessionManagement(session -> session
                         .sessionCreationPolicy(SessionCreationPolicy.ALWAYS)) // Always create session
                 .authorizeHttpRequests(auth -> auth
+                        // Bulk exports contain every user's data: admins only, checked before the public matchers
+                        .requestMatchers("/api/invoices/admin/**").hasRole("ADMIN")
+                        // Cache internals are operational data, not part of the public catalog
+                        .requestMatchers("/api/categories/cache/**").hasRole("ADMIN")
                         .requestMatchers(
                                 "/api/auth/**",
                                 "/api/users/**",
@@ -107,7 +111,7 @@ public class SecurityConfig {
         configuration.setAllowedOrigins(Arrays.asList("http://localhost:5173", "http://localhost")); // Frontend origin
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "HEAD", "PATCH"));
         configuration.setAllowedHeaders(Arrays.asList("*")); // Allow all headers
-        configuration.setExposedHeaders(Arrays.asList("Authorization", "Content-Type")); // Expose specific headers
+        configuration.setExposedHeaders(Arrays.asList("Authorization", "Content-Type", "Content-Disposition", "ETag", "Last-Modified", "X-Total-Count")); // Expose specific headers
         configuration.setAllowCredentials(true); // Allow cookies/credentials
         configuration.setMaxAge(3600L); // Cache the CORS configuration for 1 hour
 
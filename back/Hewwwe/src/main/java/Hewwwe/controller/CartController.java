@@ -4,20 +4,27 @@ package Hewwwe.controller;
  * REST Controller that handles shopping cart operations.
  * Provides endpoints for managing user shopping carts, including adding/removing products and checkout.
  */
+import Hewwwe.dto.CartBatchRequestDTO;
+import Hewwwe.dto.CartBatchResponseDTO;
 import Hewwwe.dto.CartResponseDTO;
 import Hewwwe.entity.Address;
-import Hewwwe.entity.Cart;
 import Hewwwe.entity.Product;
+import Hewwwe.exception.ConflictException;
+import Hewwwe.exception.ResourceNotFoundException;
 import Hewwwe.services.CartService;
+import Hewwwe.services.JsonStreamer;
 import Hewwwe.services.ProductService;
 import Hewwwe.services.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -31,6 +38,7 @@ public class CartController {
     private final CartService cartService;
     private final ProductService productService;
     private final UserService userService;
+    private final JsonStreamer jsonStreamer;
 
     /**
      * Retrieves a user's shopping cart.
@@ -41,18 +49,7 @@ public class CartController {
     @GetMapping("/user/{userId}")
     @Operation(summary = "Get a user's cart")
     public ResponseEntity<CartResponseDTO> getUserCart(@PathVariable Long userId) {
-        System.out.println("Getting cart for user ID: " + userId);
-        CartResponseDTO cart = userService.getCartByUserId(userId);
-        if (cart != null) {
-            System.out.println("Cart found: " + cart.getCartId());
-            System.out.println("Product IDs in cart: " + (cart.getProductIds() != null ? cart.getProductIds().size() : "null"));
-            if (cart.getProductIds() != null) {
-                System.out.println("Product IDs: " + cart.getProductIds());
-            }
-        } else {
-            System.out.println("No cart found for user ID: " + userId);
-        }
-        return ResponseEntity.ok(cart);
+        return ResponseEntity.ok(userService.getCartByUserId(userId));
     }
 
     /**
@@ -82,12 +79,35 @@ public class CartController {
             CartResponseDTO cartDTO = userService.getCartByUserId(userId);
             cartService.addProduct(cartDTO.getCartId(), productId);
             return ResponseEntity.ok(userService.getCartByUserId(userId));
+        } catch (ConflictException e) {
+            // Sold or held in another cart
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body("Error adding product to cart: " + e.getMessage());
         }
     }
 
+    /**
+     * Adds and removes many products in one request, e.g. to move a whole wishlist to the cart.
+     * Operations on the same product are resolved in order, the last one winning.
+     *
+     * @param userId ID of the user
+     * @param request Add and remove operations to apply
+     * @return ResponseEntity with the updated cart and the products that could not be added
+     */
+    @PostMapping("/user/{userId}/products/batch")
+    @Operation(summary = "Add and remove several products in the user's cart at once")
+    public ResponseEntity<CartBatchResponseDTO> updateCartProducts(@PathVariable Long userId,
+                                                                   @Valid @RequestBody CartBatchRequestDTO request) {
+        CartResponseDTO cartDTO = userService.getCartByUserId(userId);
+        if (cartDTO == null) {
+            throw new ResourceNotFoundException("User not found with ID: " + userId);
+        }
+        List<Long> rejected = cartService.applyOperations(cartDTO.getCartId(), request.getOperations());
+        return ResponseEntity.ok(new CartBatchResponseDTO(userService.getCartByUserId(userId), rejected));
+    }
+
     @DeleteMapping("/user/{userId}/products/{productId}")
     @Operation(summary = "Remove a product from the user's cart")
     public ResponseEntity<?> removeFromCart(@PathVariable Long userId, @PathVariable Long productId) {
@@ -130,10 +150,17 @@ public class CartController {
         return ResponseEntity.ok("Checkout successful");
     }
 
+    /**
+     * Retrieves all carts, streamed as a JSON array or as NDJSON if requested in the Accept header.
+     *
+     * @param accept Accept header of the request
+     * @return ResponseEntity streaming the list of carts
+     */
     @GetMapping("/all")
     @Operation(summary = "Get all carts")
-    public ResponseEntity<List<Cart>> getAllCarts() {
-        return ResponseEntity.ok(cartService.findAll());
+    public ResponseEntity<StreamingResponseBody> getAllCarts(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return jsonStreamer.stream(accept, cartService::streamAll, cart -> cart);
     }
 
     @DeleteMapping("/{cartId}")
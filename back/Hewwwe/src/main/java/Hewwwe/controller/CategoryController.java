@@ -1,11 +1,14 @@
 package Hewwwe.controller;
 
+import Hewwwe.dto.CacheStatsDTO;
 import Hewwwe.dto.CategoryCreateDTO;
 import Hewwwe.dto.CategoryResponseDTO;
 import Hewwwe.dto.ProductResponseDTO;
 import Hewwwe.entity.Category;
-import Hewwwe.entity.Product;
+import Hewwwe.mapper.ProductMapper;
 import Hewwwe.services.CategoryService;
+import Hewwwe.services.TableVersions;
+import Hewwwe.services.TableVersions.Table;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -15,6 +18,7 @@ import org.modelmapper.ModelMapper;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -30,6 +34,8 @@ public class CategoryController {
 
     private final CategoryService categoryService;
     private final ModelMapper modelMapper;
+    private final ProductMapper productMapper;
+    private final TableVersions tableVersions;
 
     /**
      * Obtiene todas las categorías registradas en el sistema.
@@ -39,11 +45,10 @@ public class CategoryController {
     @GetMapping
     @Operation(summary = "Get all categories")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved categories")
-    public ResponseEntity<List<CategoryResponseDTO>> getAllCategories() {
-        List<CategoryResponseDTO> categories = categoryService.getAllCategories().stream()
+    public ResponseEntity<List<CategoryResponseDTO>> getAllCategories(WebRequest request) {
+        return tableVersions.conditionalGet(request, () -> categoryService.getAllCategories().stream()
                 .map(category -> modelMapper.map(category, CategoryResponseDTO.class))
-                .toList();
-        return ResponseEntity.ok(categories);
+                .toList(), Table.CATEGORY);
     }
 
     /**
@@ -56,9 +61,10 @@ public class CategoryController {
     @Operation(summary = "Get a category by ID")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved category")
     @ApiResponse(responseCode = "404", description = "Category not found")
-    public ResponseEntity<CategoryResponseDTO> getCategoryById(@PathVariable Long id) {
-        Category category = categoryService.getCategoryById(id);
-        return ResponseEntity.ok(modelMapper.map(category, CategoryResponseDTO.class));
+    public ResponseEntity<CategoryResponseDTO> getCategoryById(@PathVariable Long id, WebRequest request) {
+        return tableVersions.conditionalGet(request,
+                () -> modelMapper.map(categoryService.getCategoryById(id), CategoryResponseDTO.class),
+                Table.CATEGORY);
     }
 
     /**
@@ -129,10 +135,22 @@ public class CategoryController {
     @Operation(summary = "Get all products in a category")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved category products")
     @ApiResponse(responseCode = "404", description = "Category not found")
-    public ResponseEntity<List<ProductResponseDTO>> getProductsByCategory(@PathVariable Long id) {
-        List<Product> products = categoryService.getProductsByCategory(id);
-        return ResponseEntity.ok(products.stream()
-                .map(product -> modelMapper.map(product, ProductResponseDTO.class))
-                .toList());
+    public ResponseEntity<List<ProductResponseDTO>> getProductsByCategory(@PathVariable Long id, WebRequest request) {
+        return tableVersions.conditionalGet(request,
+                () -> productMapper.toResponseList(categoryService.getProductsByCategory(id)),
+                Table.PRODUCT, Table.CATEGORY, Table.USER);
+    }
+
+    /**
+     * Obtiene las estadísticas de la caché de categorías (aciertos, fallos, tamaño).
+     *
+     * @return ResponseEntity con las estadísticas de cada caché de categorías
+     */
+    @GetMapping("/cache/stats")
+    @Operation(summary = "Get category cache statistics")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved cache statistics")
+    @ApiResponse(responseCode = "403", description = "The caller is not an admin")
+    public ResponseEntity<List<CacheStatsDTO>> getCacheStats() {
+        return ResponseEntity.ok(categoryService.getCacheStats());
     }
 }
@@ -1,20 +1,31 @@
 package Hewwwe.controller;
 
 import Hewwwe.dto.ExchangeCreateDTO;
+import Hewwwe.dto.ExchangeProposalDTO;
 import Hewwwe.dto.ExchangeResponseDTO;
 import Hewwwe.dto.ProductResponseDTO;
+import Hewwwe.dto.SwapSuggestionDTO;
 import Hewwwe.entity.Exchange;
+import Hewwwe.exception.ConflictException;
 import Hewwwe.exception.ResourceNotFoundException;
+import Hewwwe.mapper.ExchangeMapper;
+import Hewwwe.mapper.ProductMapper;
 import Hewwwe.services.ExchangeService;
+import Hewwwe.services.JsonStreamer;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -32,21 +43,24 @@ import java.util.Arrays;
 public class ExchangeController {
 
     private final ExchangeService exchangeService;
-    private final ModelMapper modelMapper;
+    private final ExchangeMapper exchangeMapper;
+    private final ProductMapper productMapper;
+    private final JsonStreamer jsonStreamer;
 
     /**
      * Retrieves all exchanges registered in the system.
+     * The list is streamed as a JSON array, or as NDJSON if requested in the Accept header.
      *
-     * @return ResponseEntity containing the list of exchanges
+     * @param accept Accept header of the request
+     * @return ResponseEntity streaming the list of exchanges
      */
     @GetMapping
     @Operation(summary = "Get all exchanges")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved exchanges")
-    public ResponseEntity<List<ExchangeResponseDTO>> getAllExchanges() {
-        List<ExchangeResponseDTO> exchanges = exchangeService.getAllExchanges().stream()
-                .map(exchange -> modelMapper.map(exchange, ExchangeResponseDTO.class))
-                .toList();
-        return ResponseEntity.ok(exchanges);
+    public ResponseEntity<StreamingResponseBody> getAllExchanges(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return jsonStreamer.stream(accept, exchangeService::streamAllExchanges,
+                exchangeMapper::toResponse);
     }
 
     /**
@@ -61,7 +75,7 @@ public class ExchangeController {
     @ApiResponse(responseCode = "404", description = "Exchange not found")
     public ResponseEntity<ExchangeResponseDTO> getExchangeById(@PathVariable Long id) {
         Exchange exchange = exchangeService.getExchangeById(id);
-        return ResponseEntity.ok(modelMapper.map(exchange, ExchangeResponseDTO.class));
+        return ResponseEntity.ok(exchangeMapper.toResponse(exchange));
     }
 
     /**
@@ -97,12 +111,34 @@ public class ExchangeController {
                 requesterProductId
             );
             
-            return new ResponseEntity<>(modelMapper.map(exchange, ExchangeResponseDTO.class), HttpStatus.CREATED);
+            return new ResponseEntity<>(exchangeMapper.toResponse(exchange), HttpStatus.CREATED);
         } catch (Exception e) {
             throw new RuntimeException("Error proposing exchange: " + e.getMessage());
         }
     }
 
+    /**
+     * Proposes an exchange of several products on each side (bundles).
+     * All the products are validated at once and the exchange is stored in a single batch.
+     *
+     * @param proposal Users and products on each side of the exchange
+     * @return ResponseEntity with the created exchange
+     */
+    @PostMapping("/bundle")
+    @Operation(summary = "Propose an exchange of several products per side")
+    @ApiResponse(responseCode = "201", description = "Exchange proposed successfully")
+    @ApiResponse(responseCode = "400", description = "Invalid input or products not owned by the users")
+    @ApiResponse(responseCode = "404", description = "Product not found")
+    @ApiResponse(responseCode = "409", description = "Product not available")
+    public ResponseEntity<ExchangeResponseDTO> proposeBundleExchange(@Valid @RequestBody ExchangeProposalDTO proposal) {
+        Exchange exchange = exchangeService.proposeExchange(
+                proposal.getOwnerId(),
+                proposal.getRequesterId(),
+                proposal.getOwnerProductIds(),
+                proposal.getRequesterProductIds());
+        return new ResponseEntity<>(exchangeMapper.toResponse(exchange), HttpStatus.CREATED);
+    }
+
     /**
      * Actualiza un intercambio existente.
      *
@@ -118,9 +154,12 @@ public class ExchangeController {
             @PathVariable Long id,
             @Valid @RequestBody ExchangeResponseDTO exchangeDTO) {
         try {
-            Exchange exchange = modelMapper.map(exchangeDTO, Exchange.class);
+            Exchange exchange = exchangeMapper.toEntity(exchangeDTO);
             Exchange updatedExchange = exchangeService.updateExchange(exchange);
-            return ResponseEntity.ok(modelMapper.map(updatedExchange, ExchangeResponseDTO.class));
+            return ResponseEntity.ok(exchangeMapper.toResponse(updatedExchange));
+        } catch (ConflictException | ConcurrencyFailureException e) {
+            // Lost a race against a concurrent write: answered with 409 by the exception handler
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Error updating exchange: " + e.getMessage());
         }
@@ -151,9 +190,8 @@ public class ExchangeController {
     @Operation(summary = "Get exchanges requested by a user")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved user's requested exchanges")
     public ResponseEntity<List<ExchangeResponseDTO>> getExchangesByRequesterId(@PathVariable Long userId) {
-        List<ExchangeResponseDTO> exchanges = exchangeService.getExchangesByRequesterId(userId).stream()
-                .map(exchange -> modelMapper.map(exchange, ExchangeResponseDTO.class))
-                .toList();
+        List<ExchangeResponseDTO> exchanges = exchangeMapper.toResponseList(
+                exchangeService.getExchangesByRequesterId(userId));
         return ResponseEntity.ok(exchanges);
     }
 
@@ -167,12 +205,29 @@ public class ExchangeController {
     @Operation(summary = "Get exchanges where user is the owner")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved user's owned exchanges")
     public ResponseEntity<List<ExchangeResponseDTO>> getExchangesByOwnerId(@PathVariable Long userId) {
-        List<ExchangeResponseDTO> exchanges = exchangeService.getExchangesByOwnerId(userId).stream()
-                .map(exchange -> modelMapper.map(exchange, ExchangeResponseDTO.class))
-                .toList();
+        List<ExchangeResponseDTO> exchanges = exchangeMapper.toResponseList(
+                exchangeService.getExchangesByOwnerId(userId));
         return ResponseEntity.ok(exchanges);
     }
 
+    /**
+     * Sugiere intercambios para un usuario: primero intercambios directos entre dos usuarios
+     * y después ciclos entre tres (A da a C, C da a B, B da a A).
+     *
+     * @param userId ID del usuario
+     * @param limit Número máximo de sugerencias
+     * @return ResponseEntity con las sugerencias, cada una como la lista de productos que pasan de un usuario a otro
+     */
+    @GetMapping("/suggestions/{userId}")
+    @Operation(summary = "Suggest swaps and exchange cycles for a user")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved swap suggestions")
+    @ApiResponse(responseCode = "404", description = "User not found")
+    public ResponseEntity<List<SwapSuggestionDTO>> getSwapSuggestions(
+            @PathVariable Long userId,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(exchangeService.suggestSwaps(userId, Math.min(limit, 100)));
+    }
+
     /**
      * Obtiene todos los productos en un intercambio.
      *
@@ -189,9 +244,7 @@ public class ExchangeController {
             throw new ResourceNotFoundException("Exchange not found with id: " + id);
         }
         
-        List<ProductResponseDTO> products = exchange.getProducts().stream()
-                .map(product -> modelMapper.map(product, ProductResponseDTO.class))
-                .toList();
+        List<ProductResponseDTO> products = productMapper.toResponseList(exchange.getProducts());
         
         return ResponseEntity.ok(products);
     }
@@ -207,11 +260,12 @@ public class ExchangeController {
     @Operation(summary = "Update exchange status")
     @ApiResponse(responseCode = "200", description = "Exchange status updated successfully")
     @ApiResponse(responseCode = "404", description = "Exchange not found")
+    @ApiResponse(responseCode = "409", description = "The exchange cannot move from its current status to the new one")
     public ResponseEntity<ExchangeResponseDTO> updateExchangeStatus(
             @PathVariable Long id,
             @RequestParam String status) {
         Exchange updatedExchange = exchangeService.updateExchangeStatus(id, status);
-        return ResponseEntity.ok(modelMapper.map(updatedExchange, ExchangeResponseDTO.class));
+        return ResponseEntity.ok(exchangeMapper.toResponse(updatedExchange));
     }
 
     /**
@@ -224,10 +278,13 @@ public class ExchangeController {
     @Operation(summary = "Accept an exchange proposal")
     @ApiResponse(responseCode = "200", description = "Exchange accepted successfully")
     @ApiResponse(responseCode = "404", description = "Exchange not found")
+    @ApiResponse(responseCode = "409", description = "A product of the exchange is no longer available")
     public ResponseEntity<ExchangeResponseDTO> acceptExchange(@PathVariable Long id) {
         try {
             Exchange updatedExchange = exchangeService.acceptExchangeAndMarkProductsAsSold(id);
-            return ResponseEntity.ok(modelMapper.map(updatedExchange, ExchangeResponseDTO.class));
+            return ResponseEntity.ok(exchangeMapper.toResponse(updatedExchange));
+        } catch (ConflictException | ConcurrencyFailureException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Error accepting exchange: " + e.getMessage());
         }
@@ -246,56 +303,47 @@ public class ExchangeController {
     public ResponseEntity<ExchangeResponseDTO> rejectExchange(@PathVariable Long id) {
         try {
             Exchange updatedExchange = exchangeService.updateExchangeStatus(id, "REJECTED");
-            return ResponseEntity.ok(modelMapper.map(updatedExchange, ExchangeResponseDTO.class));
+            return ResponseEntity.ok(exchangeMapper.toResponse(updatedExchange));
+        } catch (ConflictException | ConcurrencyFailureException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Error rejecting exchange: " + e.getMessage());
         }
     }
 
     /**
-     * Obtiene todos los intercambios de un usuario (solicitados y donde es propietario).
+     * Obtiene los intercambios de un usuario (solicitados y donde es propietario), del más reciente al más antiguo.
+     * Sin {@code size} se devuelven todos; con {@code size} se devuelve esa página y el total en la cabecera
+     * {@code X-Total-Count}.
      *
      * @param userId ID del usuario
-     * @return ResponseEntity con la lista de todos los intercambios del usuario
+     * @param status Estado de los intercambios a devolver (opcional)
+     * @param page Número de página, empezando en 0
+     * @param size Tamaño de página (opcional)
+     * @return ResponseEntity con los intercambios del usuario
      */
     @GetMapping("/user/{userId}")
-    @Operation(summary = "Get all exchanges for a user (both requested and owned)")
+    @Operation(summary = "Get the exchanges of a user (both requested and owned), optionally paged and filtered by status")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved user's exchanges")
-    public ResponseEntity<List<ExchangeResponseDTO>> getUserExchanges(@PathVariable Long userId) {
-        List<Exchange> requestedExchanges = exchangeService.getExchangesByRequesterId(userId);
-        List<Exchange> ownedExchanges = exchangeService.getExchangesByOwnerId(userId);
-        
-        // Combinar las listas y eliminar duplicados
-        List<Exchange> allExchanges = new java.util.ArrayList<>(requestedExchanges);
-        for (Exchange exchange : ownedExchanges) {
-            if (!allExchanges.contains(exchange)) {
-                allExchanges.add(exchange);
-            }
-        }
-        
-        List<ExchangeResponseDTO> exchangeDTOs = new java.util.ArrayList<>();
-        
-        for (Exchange exchange : allExchanges) {
-            ExchangeResponseDTO dto = modelMapper.map(exchange, ExchangeResponseDTO.class);
-            
-            // Mapear manualmente productos para incluir información completa
-            List<ProductResponseDTO> productDTOs = exchange.getProducts().stream()
-                .map(product -> {
-                    ProductResponseDTO productDTO = modelMapper.map(product, ProductResponseDTO.class);
-                    productDTO.setUserId(product.getUser().getUserId());
-                    return productDTO;
-                })
-                .toList();
-            
-            dto.setProducts(productDTOs);
+    public ResponseEntity<List<ExchangeResponseDTO>> getUserExchanges(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Integer size) {
+        Pageable pageable = size != null ? PageRequest.of(page, size) : Pageable.unpaged();
+        Page<Exchange> exchanges = exchangeService.getUserExchanges(userId, status, pageable);
+
+        List<ExchangeResponseDTO> exchangeDTOs = exchanges.stream().map(exchange -> {
+            ExchangeResponseDTO dto = exchangeMapper.toResponse(exchange);
             dto.setOwnerName(exchange.getOwner().getUsername());
             dto.setRequesterName(exchange.getRequester().getUsername());
-            dto.setOwnerId(exchange.getOwner().getUserId());
-            dto.setRequesterId(exchange.getRequester().getUserId());
-            
-            exchangeDTOs.add(dto);
+            return dto;
+        }).toList();
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (pageable.isPaged()) {
+            response.header("X-Total-Count", String.valueOf(exchanges.getTotalElements()));
         }
-        
-        return ResponseEntity.ok(exchangeDTOs);
+        return response.body(exchangeDTOs);
     }
 }
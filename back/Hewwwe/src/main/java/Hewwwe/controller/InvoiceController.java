@@ -3,14 +3,22 @@ package Hewwwe.controller;
 import Hewwwe.dto.InvoiceCreateDTO;
 import Hewwwe.dto.InvoiceResponseDTO;
 import Hewwwe.entity.Invoice;
+import Hewwwe.mapper.InvoiceMapper;
+import Hewwwe.services.InvoiceExportService;
+import Hewwwe.services.InvoicePdfService;
 import Hewwwe.services.InvoiceService;
+import Hewwwe.services.JsonStreamer;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -18,11 +26,20 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * REST Controller that handles invoice operations.
@@ -33,22 +50,32 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 @Tag(name = "Invoice Controller", description = "Invoice management endpoints")
 public class InvoiceController {
+    // Request attributes through which Tomcat sends a file from the kernel, without copying it to the JVM
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     private final InvoiceService invoiceService;
-    private final ModelMapper modelMapper;
+    private final InvoicePdfService invoicePdfService;
+    private final InvoiceExportService invoiceExportService;
+    private final InvoiceMapper invoiceMapper;
+    private final JsonStreamer jsonStreamer;
 
     /**
      * Retrieves all invoices in the system.
+     * The list is streamed as a JSON array, or as NDJSON if requested in the Accept header.
      *
-     * @return ResponseEntity containing the list of invoices
+     * @param accept Accept header of the request
+     * @return ResponseEntity streaming the list of invoices
      */
     @GetMapping
     @Operation(summary = "Get all invoices")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved invoices")
-    public ResponseEntity<List<InvoiceResponseDTO>> getAllInvoices() {
-        List<InvoiceResponseDTO> invoices = invoiceService.findAll().stream()
-                .map(invoice -> modelMapper.map(invoice, InvoiceResponseDTO.class))
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(invoices);
+    public ResponseEntity<StreamingResponseBody> getAllInvoices(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return jsonStreamer.stream(accept, invoiceService::streamAll,
+                invoiceMapper::toResponse);
     }
 
     /**
@@ -61,24 +88,97 @@ public class InvoiceController {
     @Operation(summary = "Get an invoice by ID")
     public ResponseEntity<InvoiceResponseDTO> getInvoiceById(@PathVariable Long id) {
         Invoice invoice = invoiceService.findById(id);
-        return ResponseEntity.ok(modelMapper.map(invoice, InvoiceResponseDTO.class));
+        return ResponseEntity.ok(invoiceMapper.toResponse(invoice));
+    }
+
+    /**
+     * Downloads the PDF document of an invoice.
+     * <p>
+     * The first download renders the document on the async task executor, streaming it to the response
+     * as it is written; it is then cached on disk per invoice version and served from the file,
+     * through Tomcat's sendfile when the connector supports it.
+     * The ETag is the invoice version, so unchanged documents are answered with 304.
+     *
+     * @param id ID of the invoice
+     * @param webRequest Current request, for the conditional headers
+     * @param request Current servlet request, for sendfile support
+     * @return ResponseEntity with the PDF document
+     * @throws IOException if the cached document cannot be read
+     */
+    @GetMapping("/{id}/pdf")
+    @Operation(summary = "Download the PDF document of an invoice")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved invoice document")
+    @ApiResponse(responseCode = "304", description = "Invoice document not modified")
+    @ApiResponse(responseCode = "404", description = "Invoice not found")
+    public ResponseEntity<StreamingResponseBody> getInvoicePdf(@PathVariable Long id, WebRequest webRequest,
+                                                               HttpServletRequest request) throws IOException {
+        long version = invoicePdfService.getVersion(id);
+        String eTag = "\"" + id + "-" + version + "\"";
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_PDF)
+                .eTag(eTag)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.inline().filename("factura-" + id + ".pdf").build().toString());
+
+        Path cached = invoicePdfService.getCached(id, version);
+        if (cached == null) {
+            return response.body(outputStream -> invoicePdfService.render(id, version, outputStream));
+        }
+        long length = Files.size(cached);
+        response.contentLength(length);
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, cached.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, length);
+            return response.build();
+        }
+        return response.body(outputStream -> Files.copy(cached, outputStream));
+    }
+
+    /**
+     * Exports every invoice of a date range (Admin only): a ZIP with the PDF of each invoice
+     * and a CSV ledger, streamed while it is being built.
+     *
+     * @param from First day of the range
+     * @param to Last day of the range, inclusive
+     * @return ResponseEntity streaming the ZIP, with the number of invoices in {@code X-Total-Count}
+     */
+    @GetMapping("/admin/export")
+    @Operation(summary = "Export the invoices of a date range as a ZIP of PDFs and a CSV ledger (Admin only)")
+    @ApiResponse(responseCode = "200", description = "Successfully exported invoices")
+    @ApiResponse(responseCode = "400", description = "Invalid date range")
+    @ApiResponse(responseCode = "403", description = "The caller is not an admin")
+    public ResponseEntity<StreamingResponseBody> exportInvoices(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        Date start = Date.from(from.atStartOfDay(ZoneId.systemDefault()).toInstant());
+        Date end = Date.from(to.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        long total = invoiceExportService.count(start, end);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("facturas-" + from + "_" + to + ".zip").build().toString())
+                .header("X-Total-Count", String.valueOf(total))
+                .body(outputStream -> invoiceExportService.export(start, end, outputStream));
     }
 
     @GetMapping("/user/{userId}")
     @Operation(summary = "Get invoices by user ID")
     public ResponseEntity<List<InvoiceResponseDTO>> getInvoicesByUserId(@PathVariable Long userId) {
-        List<InvoiceResponseDTO> invoices = invoiceService.findByUserId(userId).stream()
-                .map(invoice -> modelMapper.map(invoice, InvoiceResponseDTO.class))
-                .collect(Collectors.toList());
+        List<InvoiceResponseDTO> invoices = invoiceMapper.toResponseList(invoiceService.findByUserId(userId));
         return ResponseEntity.ok(invoices);
     }
 
     @PostMapping
     @Operation(summary = "Create new invoice")
     public ResponseEntity<InvoiceResponseDTO> createInvoice(@Valid @RequestBody InvoiceCreateDTO invoiceDTO) {
-        Invoice invoice = modelMapper.map(invoiceDTO, Invoice.class);
+        Invoice invoice = invoiceMapper.toEntity(invoiceDTO);
         Invoice savedInvoice = invoiceService.save(invoice);
-        return new ResponseEntity<>(modelMapper.map(savedInvoice, InvoiceResponseDTO.class), HttpStatus.CREATED);
+        return new ResponseEntity<>(invoiceMapper.toResponse(savedInvoice), HttpStatus.CREATED);
     }
 
     @PutMapping("/{id}")
@@ -86,9 +186,9 @@ public class InvoiceController {
     public ResponseEntity<InvoiceResponseDTO> updateInvoice(
             @PathVariable Long id,
             @Valid @RequestBody InvoiceCreateDTO invoiceDTO) {
-        Invoice invoice = modelMapper.map(invoiceDTO, Invoice.class);
+        Invoice invoice = invoiceMapper.toEntity(invoiceDTO);
         Invoice updatedInvoice = invoiceService.update(id, invoice);
-        return ResponseEntity.ok(modelMapper.map(updatedInvoice, InvoiceResponseDTO.class));
+        return ResponseEntity.ok(invoiceMapper.toResponse(updatedInvoice));
     }
 
     @DeleteMapping("/{id}")
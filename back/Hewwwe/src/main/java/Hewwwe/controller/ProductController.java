@@ -3,23 +3,33 @@
  */
 package Hewwwe.controller;
 
+import Hewwwe.dto.ProductBrowseDTO;
 import Hewwwe.dto.ProductCreateDTO;
+import Hewwwe.dto.ProductPageDTO;
 import Hewwwe.dto.ProductResponseDTO;
 import Hewwwe.dto.ProductUpdateDTO;
 import Hewwwe.dto.UserResponseDTO;
 import Hewwwe.entity.Product;
+import Hewwwe.mapper.ProductMapper;
+import Hewwwe.services.JsonStreamer;
 import Hewwwe.services.ProductService;
+import Hewwwe.services.TableVersions;
+import Hewwwe.services.TableVersions.Table;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * REST controller that handles operations related to products.
@@ -36,9 +46,19 @@ public class ProductController {
     private final ProductService productService;
 
     /**
-     * Mapper for converting between entities and DTOs
+     * Mapper for converting between product entities and DTOs
      */
-    private final ModelMapper modelMapper;
+    private final ProductMapper productMapper;
+
+    /**
+     * Version counters used to answer conditional GETs (ETag / Last-Modified)
+     */
+    private final TableVersions tableVersions;
+
+    /**
+     * Writes bulk listings to the response row by row
+     */
+    private final JsonStreamer jsonStreamer;
 
     /**
      * Retrieves all available products
@@ -48,20 +68,70 @@ public class ProductController {
     @GetMapping
     @Operation(summary = "Get all available products")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved available products")
-    public ResponseEntity<List<ProductResponseDTO>> getAllProducts() {
-        return ResponseEntity.ok(productService.findAll());
+    public ResponseEntity<List<ProductResponseDTO>> getAllProducts(WebRequest request) {
+        return conditionalGet(request, productService::findAll);
+    }
+    
+    /**
+     * Retrieves available products one page at a time, newest first
+     * 
+     * @param cursor Cursor returned by the previous page (omit for the first page)
+     * @param size Number of products per page (max 100)
+     * @return Page of available products and the cursor of the next page
+     */
+    @GetMapping("/page")
+    @Operation(summary = "Get available products using cursor pagination")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved page of products")
+    @ApiResponse(responseCode = "400", description = "Invalid cursor")
+    public ResponseEntity<ProductPageDTO> getProductsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            WebRequest request) {
+        return conditionalGet(request, () -> productService.findAvailablePage(cursor, size));
     }
     
     /**
-     * Retrieves all products (including sold ones) - Admin only
+     * Browses the catalog combining category, size, price band and status filters
      * 
+     * @param status Product status (defaults to AVAILABLE)
+     * @param categoryId Optional category filter
+     * @param size Optional size filter
+     * @param priceRange Optional price band filter (0-25, 25-50, 50-100, 100-200, 200-max)
+     * @param page Zero-based page number
+     * @param pageSize Number of products per page (max 100)
+     * @return Page of matching products with facet counts
+     */
+    @GetMapping("/browse")
+    @Operation(summary = "Browse products with combined filters and facet counts")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved products and facets")
+    public ResponseEntity<ProductBrowseDTO> browseProducts(
+            @RequestParam(defaultValue = "AVAILABLE") String status,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) String size,
+            @RequestParam(required = false) String priceRange,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int pageSize,
+            WebRequest request) {
+        return conditionalGet(request,
+                () -> productService.browse(status, categoryId, size, priceRange, page, pageSize));
+    }
+
+    /**
+     * Retrieves all products (including sold ones) - Admin only.
+     * The list is streamed as a JSON array, or as NDJSON if requested in the Accept header.
+     * 
+     * @param accept Accept header of the request
      * @return Complete list of products
      */
     @GetMapping("/admin/all")
     @Operation(summary = "Get all products including sold ones (Admin only)")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved all products")
-    public ResponseEntity<List<ProductResponseDTO>> getAllProductsForAdmin() {
-        return ResponseEntity.ok(productService.findAllForAdmin());
+    public ResponseEntity<StreamingResponseBody> getAllProductsForAdmin(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept, WebRequest request) {
+        MediaType contentType = jsonStreamer.negotiate(accept);
+        return tableVersions.conditionalGet(request, contentType,
+                () -> jsonStreamer.body(contentType, productService::streamAllForAdmin, product -> product),
+                Table.PRODUCT, Table.CATEGORY, Table.USER);
     }
 
     /**
@@ -74,8 +144,8 @@ public class ProductController {
     @Operation(summary = "Get a product by ID")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved product")
     @ApiResponse(responseCode = "404", description = "Product not found")
-    public ResponseEntity<ProductResponseDTO> getProduct(@PathVariable Long id) {
-        return ResponseEntity.ok(productService.findById(id));
+    public ResponseEntity<ProductResponseDTO> getProduct(@PathVariable Long id, WebRequest request) {
+        return conditionalGet(request, () -> productService.findById(id));
     }
 
     /**
@@ -119,7 +189,7 @@ public class ProductController {
     public ResponseEntity<ProductResponseDTO> updateProduct(
             @PathVariable Long id,
             @Valid @RequestBody ProductUpdateDTO updateDTO) {
-        Product product = modelMapper.map(updateDTO, Product.class);
+        Product product = productMapper.toEntity(updateDTO);
         return ResponseEntity.ok(productService.update(id, product));
     }
 
@@ -145,8 +215,8 @@ public class ProductController {
      */
     @GetMapping("/category/{categoryId}")
     @Operation(summary = "Get products by category")
-    public ResponseEntity<List<ProductResponseDTO>> getProductsByCategory(@PathVariable Long categoryId) {
-        return ResponseEntity.ok(productService.findByCategory(categoryId));
+    public ResponseEntity<List<ProductResponseDTO>> getProductsByCategory(@PathVariable Long categoryId, WebRequest request) {
+        return conditionalGet(request, () -> productService.findByCategory(categoryId));
     }
 
     /**
@@ -157,8 +227,8 @@ public class ProductController {
      */
     @GetMapping("/user/{userId}")
     @Operation(summary = "Get products by user")
-    public ResponseEntity<List<ProductResponseDTO>> getProductsByUser(@PathVariable Long userId) {
-        return ResponseEntity.ok(productService.findByUser(userId));
+    public ResponseEntity<List<ProductResponseDTO>> getProductsByUser(@PathVariable Long userId, WebRequest request) {
+        return conditionalGet(request, () -> productService.findByUser(userId));
     }
 
     /**
@@ -169,19 +239,38 @@ public class ProductController {
      */
     @GetMapping("/status/{status}")
     @Operation(summary = "Get products by status")
-    public ResponseEntity<List<ProductResponseDTO>> getProductsByStatus(@PathVariable String status) {
-        return ResponseEntity.ok(productService.findByStatus(status));
+    public ResponseEntity<List<ProductResponseDTO>> getProductsByStatus(@PathVariable String status, WebRequest request) {
+        return conditionalGet(request, () -> productService.findByStatus(status));
     }
 
     /**
      * Searches products by keyword
      * 
      * @param keyword Keyword for search
-     * @return List of products matching the search
+     * @param page Zero-based page number
+     * @param size Number of results per page (max 100)
+     * @return List of products matching the search, most relevant first
      */
     @GetMapping("/search")
     @Operation(summary = "Search products by keyword")
-    public ResponseEntity<List<ProductResponseDTO>> searchProducts(@RequestParam String keyword) {
-        return ResponseEntity.ok(productService.searchProducts(keyword));
+    public ResponseEntity<List<ProductResponseDTO>> searchProducts(
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size,
+            WebRequest request) {
+        return conditionalGet(request, () -> productService.searchProducts(keyword, page, size));
+    }
+
+    /**
+     * Answers a product read with 304 if the client's copy is still current.
+     * Product responses include the owner's name and the category name,
+     * so they depend on the product, category and user tables.
+     * 
+     * @param request Current request
+     * @param body Builds the response body when it has changed
+     * @return 304 or 200 response with ETag and Last-Modified headers
+     */
+    private <T> ResponseEntity<T> conditionalGet(WebRequest request, Supplier<T> body) {
+        return tableVersions.conditionalGet(request, body, Table.PRODUCT, Table.CATEGORY, Table.USER);
     }
 }
@@ -9,18 +9,20 @@ import Hewwwe.dto.UserResponseDTO;
 import Hewwwe.dto.UserUpdateDTO;
 import Hewwwe.entity.*;
 import Hewwwe.exception.ResourceNotFoundException;
+import Hewwwe.services.JsonStreamer;
 import Hewwwe.services.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * REST Controller that handles user-related operations.
@@ -33,6 +35,7 @@ import java.util.stream.Collectors;
 public class UserController {
     private final UserService userService;
     private final ModelMapper modelMapper;
+    private final JsonStreamer jsonStreamer;
 
     /**
      * Registers a new user in the system.
@@ -67,16 +70,17 @@ public class UserController {
 
     /**
      * Retrieves all registered users in the system.
+     * The list is streamed as a JSON array, or as NDJSON if requested in the Accept header.
      *
-     * @return ResponseEntity with the list of users
+     * @param accept Accept header of the request
+     * @return ResponseEntity streaming the list of users
      */
     @GetMapping
     @Operation(summary = "Get all users")
-    public ResponseEntity<List<UserResponseDTO>> getAllUsers() {
-        List<UserResponseDTO> users = userService.findAll().stream()
-                .map(user -> modelMapper.map(user, UserResponseDTO.class))
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(users);
+    public ResponseEntity<StreamingResponseBody> getAllUsers(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return jsonStreamer.stream(accept, userService::streamAll,
+                user -> modelMapper.map(user, UserResponseDTO.class));
     }
 
     /**
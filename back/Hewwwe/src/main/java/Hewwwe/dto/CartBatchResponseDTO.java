@@ -0,0 +1,16 @@
+package Hewwwe.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CartBatchResponseDTO {
+    private CartResponseDTO cart;
+    // Products that could not be added: not found, sold or held in another cart
+    private List<Long> rejectedProductIds;
+}
@@ -0,0 +1,22 @@
+package Hewwwe.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CartOperationDTO {
+
+    public enum Action {
+        ADD, REMOVE
+    }
+
+    @NotNull(message = "Action is required")
+    private Action action;
+
+    @NotNull(message = "Product ID is required")
+    private Long productId;
+}
@@ -1,5 +1,6 @@
 package Hewwwe.dto;
 
+import Hewwwe.entity.Money;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -15,4 +16,6 @@ public class CartResponseDTO {
     private Date cartDate;
     private Long userId;
     private List<Long> productIds;
+    private Money total;
+    private Integer itemCount;
 }
@@ -0,0 +1,30 @@
+package Hewwwe.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ExchangeProposalDTO {
+
+    @NotNull(message = "Owner ID is required")
+    private Long ownerId;
+
+    @NotNull(message = "Requester ID is required")
+    private Long requesterId;
+
+    @NotEmpty(message = "At least one owner product is required")
+    @Size(max = 50, message = "At most 50 products per side")
+    private List<@NotNull Long> ownerProductIds;
+
+    @NotEmpty(message = "At least one requester product is required")
+    @Size(max = 50, message = "At most 50 products per side")
+    private List<@NotNull Long> requesterProductIds;
+}
@@ -1,5 +1,6 @@
 package Hewwwe.dto;
 
+import Hewwwe.entity.enums.ExchangeStatus;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -12,9 +13,11 @@ import java.util.List;
 @NoArgsConstructor
 public class ExchangeResponseDTO {
     private Long exchangeId;
+    // Optimistic locking version, sent back unchanged on updates
+    private Long version;
     private Date exchangeDate;
     private Date completionDate;
-    private String status;
+    private ExchangeStatus status;
     private Long requesterId;
     private String requesterName;
     private Long ownerId;
@@ -1,8 +1,8 @@
 package Hewwwe.dto;
 
+import Hewwwe.entity.Money;
 import Hewwwe.entity.enums.InvoiceStatus;
 import jakarta.validation.constraints.NotNull;
-import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -19,8 +19,8 @@ public class InvoiceCreateDTO{
         Date invoiceDate;
         
         @NotNull(message = "Total amount is required")
-        @Positive(message = "Total amount must be positive")
-        Double totalAmount;
+        @PositiveMoney(message = "Total amount must be positive")
+        Money totalAmount;
         
         @NotNull(message = "Status is required")
         InvoiceStatus status;
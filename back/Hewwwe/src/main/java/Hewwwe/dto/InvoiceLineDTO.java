@@ -0,0 +1,18 @@
+package Hewwwe.dto;
+
+import Hewwwe.entity.Money;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class InvoiceLineDTO {
+    private Long productId;
+    private String productName;
+    private String size;
+    private Money price;
+    private Long sellerId;
+    private String sellerName;
+}
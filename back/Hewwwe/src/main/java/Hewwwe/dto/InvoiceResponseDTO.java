@@ -1,5 +1,6 @@
 package Hewwwe.dto;
 
+import Hewwwe.entity.Money;
 import Hewwwe.entity.enums.InvoiceStatus;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -14,11 +15,12 @@ import java.util.List;
 public class InvoiceResponseDTO{
         Long invoiceId;
         Date invoiceDate;
-        Double totalAmount;
+        Money totalAmount;
         InvoiceStatus status;
         Long userId;
         String userName;
         Long addressId;
         List<Long> productIds;
+        List<InvoiceLineDTO> lines;
         String pdfUrl;
 }
@@ -0,0 +1,34 @@
+package Hewwwe.dto;
+
+import Hewwwe.entity.Money;
+import jakarta.validation.Constraint;
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The annotated {@link Money} must be strictly positive ({@code null} is valid, as with {@code @Positive}).
+ */
+@Target({ElementType.FIELD, ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+@Constraint(validatedBy = PositiveMoney.Validator.class)
+public @interface PositiveMoney {
+
+    String message() default "must be greater than 0";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+
+    class Validator implements ConstraintValidator<PositiveMoney, Money> {
+        @Override
+        public boolean isValid(Money value, ConstraintValidatorContext context) {
+            return value == null || value.isPositive();
+        }
+    }
+}
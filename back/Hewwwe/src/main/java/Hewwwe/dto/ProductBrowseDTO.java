@@ -0,0 +1,24 @@
+package Hewwwe.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of a faceted catalog browse, with the facet counts of all the matching products.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductBrowseDTO {
+    private List<ProductResponseDTO> content;
+    private long totalElements;
+    private int page;
+    private int size;
+    private Map<Long, Integer> categoryCounts;
+    private Map<String, Integer> sizeCounts;
+    private Map<String, Integer> priceCounts;
+}
@@ -1,8 +1,8 @@
 package Hewwwe.dto;
 
+import Hewwwe.entity.Money;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
-import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -22,8 +22,8 @@ public class ProductCreateDTO {
         String description;
 
         @NotNull(message = "Price is required")
-        @Positive(message = "Price must be positive")
-        Double price;
+        @PositiveMoney(message = "Price must be positive")
+        Money price;
 
         @NotBlank(message = "Image is required")
         String image;
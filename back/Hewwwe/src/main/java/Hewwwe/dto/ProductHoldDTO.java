@@ -0,0 +1,12 @@
+package Hewwwe.dto;
+
+import java.util.Date;
+
+/**
+ * Hold placed on a product sitting in a cart.
+ *
+ * @param productId ID of the held product
+ * @param reservedUntil End of the hold
+ */
+public record ProductHoldDTO(Long productId, Date reservedUntil) {
+}
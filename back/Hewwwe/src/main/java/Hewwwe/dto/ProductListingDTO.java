@@ -0,0 +1,16 @@
+package Hewwwe.dto;
+
+import Hewwwe.entity.Money;
+
+/**
+ * What the exchange matcher needs to know about an available product.
+ *
+ * @param productId ID of the product
+ * @param ownerId ID of the user selling it
+ * @param categoryId ID of its category
+ * @param size Its size
+ * @param price Its price
+ * @param holderId ID of the user whose cart holds it, or null
+ */
+public record ProductListingDTO(Long productId, Long ownerId, Long categoryId, String size, Money price, Long holderId) {
+}
@@ -0,0 +1,21 @@
+package Hewwwe.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of the product catalog.
+ * {@code nextCursor} is an opaque token to pass back to fetch the following page,
+ * or {@code null} when there are no more products.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductPageDTO {
+    private List<ProductResponseDTO> content;
+    private String nextCursor;
+    private boolean hasNext;
+}
@@ -1,5 +1,6 @@
 package Hewwwe.dto;
 
+import Hewwwe.entity.Money;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -13,7 +14,7 @@ public class ProductResponseDTO {
     private Long productId;
     private String name;
     private String description;
-    private Double price;
+    private Money price;
     private String image;
     private String size;
     private String status;
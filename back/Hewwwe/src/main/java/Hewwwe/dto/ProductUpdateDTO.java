@@ -1,5 +1,6 @@
 package Hewwwe.dto;
 
+import Hewwwe.entity.Money;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -10,7 +11,7 @@ import lombok.NoArgsConstructor;
 public class ProductUpdateDTO {
     private String name;
     private String description;
-    private Double price;
+    private Money price;
     private String image;
     private String size;
     private String status;
@@ -0,0 +1,26 @@
+package Hewwwe.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A possible exchange: every party gives one product to the next one, and the last party gives to the first.
+ * Two parties make a direct swap, three a cycle.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SwapSuggestionDTO {
+
+    /**
+     * One product changing hands.
+     */
+    public record Leg(Long fromUserId, Long toUserId, Long productId) {
+    }
+
+    private int parties;
+    private List<Leg> legs;
+}
@@ -15,7 +15,10 @@ import lombok.Setter;
 @AllArgsConstructor
 public class Address {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "address_id")
+    @TableGenerator(name = "address_id", table = IdGenerators.TABLE, pkColumnName = IdGenerators.KEY_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "address",
+            allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long addressId;
     private String street;
     private String number;
@@ -1,6 +1,7 @@
 package Hewwwe.entity;
 
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -9,6 +10,8 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -28,10 +31,24 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 @AllArgsConstructor
 public class Cart {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "cart_id")
+    @TableGenerator(name = "cart_id", table = IdGenerators.TABLE, pkColumnName = IdGenerators.KEY_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "cart",
+            allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long cartId;
+
+    @Version
+    @Column(nullable = false)
+    private long version;
     
     private Date cartDate;
+
+    // Running total and item count of the products in the cart, kept up to date by every cart operation
+    @Column(name = "total_minor", nullable = false)
+    private Money total = Money.ZERO;
+
+    @Column(nullable = false)
+    private int itemCount;
     
     @JsonIgnore
     @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL)
@@ -46,6 +63,7 @@ public class Cart {
         // Remove the cart reference from each product before clearing
         for (Product product : new ArrayList<>(this.products)) {
             product.setCart(null);
+            product.setReservedUntil(null);
         }
         this.products.clear();
     }
@@ -7,6 +7,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -24,7 +25,10 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 @AllArgsConstructor
 public class Category {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "category_id")
+    @TableGenerator(name = "category_id", table = IdGenerators.TABLE, pkColumnName = IdGenerators.KEY_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "category",
+            allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long categoryId;
     private String name;
     private String description;
@@ -1,15 +1,22 @@
 package Hewwwe.entity;
 
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
+import jakarta.persistence.Version;
+import Hewwwe.entity.enums.ExchangeStatus;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -22,18 +29,30 @@ import java.util.List;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 @Entity
-@Table(name = "exchange")
+@Table(name = "exchange", indexes = {
+    @Index(name = "idx_exchange_status_date", columnList = "status, exchange_date")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class Exchange {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "exchange_id")
+    @TableGenerator(name = "exchange_id", table = IdGenerators.TABLE, pkColumnName = IdGenerators.KEY_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "exchange",
+            allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long exchangeId;
-    private String status;
+
+    @Version
+    @Column(nullable = false)
+    private long version;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private ExchangeStatus status;
     private Date exchangeDate;
-    private Date completionDate;
+    private Date completionDate; // Set when the exchange becomes COMPLETED
 
     // Relaciones
     @JsonIgnore
@@ -0,0 +1,19 @@
+package Hewwwe.entity;
+
+/**
+ * Shared settings of the table-based ID generators used by every entity.
+ * <p>
+ * IDs are handed out in blocks of {@link #ALLOCATION_SIZE} from one row per entity in {@link #TABLE}.
+ * Hibernate therefore knows the ID of a new row before inserting it and can group inserts into
+ * JDBC batches, which {@code IDENTITY} columns make impossible.
+ */
+public final class IdGenerators {
+
+    public static final String TABLE = "id_generator";
+    public static final String KEY_COLUMN = "sequence_name";
+    public static final String VALUE_COLUMN = "next_val";
+    public static final int ALLOCATION_SIZE = 50;
+
+    private IdGenerators() {
+    }
+}
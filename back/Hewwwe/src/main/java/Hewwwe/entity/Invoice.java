@@ -6,24 +6,37 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Objects;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 @Entity
-@Table(name = "invoice")
+@Table(name = "invoice", indexes = {
+    @Index(name = "idx_invoice_date", columnList = "invoice_date")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class Invoice {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "invoice_id")
+    @TableGenerator(name = "invoice_id", table = IdGenerators.TABLE, pkColumnName = IdGenerators.KEY_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "invoice",
+            allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long invoiceId;
+
+    // Identifies the rendered document: a new version gets a new PDF
+    @Version
+    @Column(nullable = false)
+    private long version;
     
     private Date invoiceDate;
-    private Double totalAmount;
+    @Column(name = "total_amount_minor")
+    private Money totalAmount;
     
     @JsonIgnore
     @ManyToOne
@@ -34,8 +47,41 @@ public class Invoice {
     @ManyToOne
     @JoinColumn(name = "user_id")
     private User user;
+
+    // Snapshot of the customer and the shipping address printed on the document, see snapshotCustomer
+    private String customerName;
+    private String customerEmail;
+    private String shippingAddress;
     
     @JsonIgnore
     @OneToMany(mappedBy = "invoice")
     private List<Product> products;
+
+    // Snapshot of what was sold, written together with the invoice
+    @JsonIgnore
+    @OneToMany(mappedBy = "invoice", cascade = CascadeType.PERSIST)
+    @OrderBy("lineId")
+    private List<InvoiceLine> lines = new ArrayList<>();
+
+    /**
+     * Copies the name and email of the user and the shipping address onto the invoice, so later
+     * changes to them do not alter the document of this version. Called whenever they are assigned.
+     */
+    public void snapshotCustomer() {
+        customerName = user != null ? user.getName() : null;
+        customerEmail = user != null ? user.getEmail() : null;
+        shippingAddress = address != null ? format(address) : null;
+    }
+
+    /**
+     * Formats an address the way invoices print it. Mirrored by the SQL of InvoiceCustomerMigration.
+     *
+     * @param address Address to format
+     * @return Single-line address
+     */
+    public static String format(Address address) {
+        return Objects.toString(address.getStreet(), "") + " " + Objects.toString(address.getNumber(), "") + ", "
+                + Objects.toString(address.getPostalCode(), "") + " " + Objects.toString(address.getCity(), "")
+                + " (" + Objects.toString(address.getCountry(), "") + ")";
+    }
 }
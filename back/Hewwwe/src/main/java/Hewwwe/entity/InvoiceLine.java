@@ -0,0 +1,76 @@
+package Hewwwe.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Line of an invoice: a snapshot of a product as it was sold.
+ * <p>
+ * The name, size, price and seller are copied at checkout, so editing or deleting the product later
+ * does not change the invoice. The product ID is kept as a plain value, without a foreign key.
+ * Lines are indexed by invoice, so all the lines of an invoice are read with one range scan.
+ */
+@Entity
+@Table(name = "invoice_line", indexes = {
+    @Index(name = "idx_invoice_line_invoice", columnList = "invoice_id, line_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvoiceLine {
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "invoice_line_id")
+    @TableGenerator(name = "invoice_line_id", table = IdGenerators.TABLE, pkColumnName = IdGenerators.KEY_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "invoice_line",
+            allocationSize = IdGenerators.ALLOCATION_SIZE)
+    private Long lineId;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "invoice_id", nullable = false)
+    private Invoice invoice;
+
+    @Column(nullable = false)
+    private Long productId;
+    private String productName;
+    private String size;
+
+    @Column(name = "price_minor", nullable = false)
+    private Money price;
+
+    private Long sellerId;
+    private String sellerName;
+
+    /**
+     * Snapshots a product as a line of an invoice.
+     *
+     * @param invoice Invoice the line belongs to
+     * @param product Product being sold, with its seller loaded
+     */
+    public InvoiceLine(Invoice invoice, Product product) {
+        this.invoice = invoice;
+        this.productId = product.getProductId();
+        this.productName = product.getName();
+        this.size = product.getSize();
+        this.price = product.getPrice();
+        if (product.getUser() != null) {
+            this.sellerId = product.getUser().getUserId();
+            this.sellerName = product.getUser().getUsername();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package Hewwwe.entity;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.Currency;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Fixed-point amount of money: a whole number of minor units (cents) plus the currency.
+ * <p>
+ * Arithmetic is exact and never rounds; amounts are only rounded once, when they are created
+ * from a decimal. In JSON a money value is written and read as a plain decimal number
+ * (e.g. {@code 19.99}) in the system's currency, and in the database it is stored as a
+ * {@code BIGINT} of minor units (see {@link MoneyConverter}).
+ *
+ * @param minorUnits Amount in minor units of the currency (e.g. 1999 for 19.99 EUR)
+ * @param currency Currency of the amount
+ */
+public record Money(long minorUnits, Currency currency) implements Comparable<Money> {
+
+    /**
+     * Currency of every price and total in the system.
+     */
+    public static final Currency CURRENCY = Currency.getInstance("EUR");
+
+    public static final Money ZERO = new Money(0, CURRENCY);
+
+    public Money {
+        Objects.requireNonNull(currency, "currency");
+    }
+
+    /**
+     * @param minorUnits Amount in minor units of the system's currency
+     * @return The amount
+     */
+    public static Money ofMinor(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits, CURRENCY);
+    }
+
+    /**
+     * Creates an amount in the system's currency from a decimal, rounded half-up to the minor unit.
+     *
+     * @param amount Decimal amount (e.g. 19.99)
+     * @return The amount
+     */
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static Money of(BigDecimal amount) {
+        return ofMinor(amount.movePointRight(CURRENCY.getDefaultFractionDigits())
+                .setScale(0, RoundingMode.HALF_UP)
+                .longValueExact());
+    }
+
+    /**
+     * Creates an amount in the system's currency from a double, rounded half-up to the minor unit.
+     *
+     * @param amount Decimal amount (e.g. 19.99)
+     * @return The amount
+     */
+    public static Money of(double amount) {
+        return of(BigDecimal.valueOf(amount));
+    }
+
+    /**
+     * Adds up the amounts of some items in a single {@code long}, without intermediate objects.
+     *
+     * @param items Items to add up
+     * @param amount Amount of an item
+     * @return The sum, zero if there are no items
+     */
+    public static <T> Money sum(Collection<T> items, Function<? super T, Money> amount) {
+        long total = 0;
+        for (T item : items) {
+            total = Math.addExact(total, amount.apply(item).minorUnits);
+        }
+        return ofMinor(total);
+    }
+
+    public Money plus(Money other) {
+        checkCurrency(other);
+        return new Money(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money minus(Money other) {
+        checkCurrency(other);
+        return new Money(Math.subtractExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    /**
+     * @return The amount as a decimal with the scale of the currency (e.g. 19.99)
+     */
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, currency.getDefaultFractionDigits());
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        checkCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString() + " " + currency.getCurrencyCode();
+    }
+
+    private void checkCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency + " and " + other.currency);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package Hewwwe.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores every {@link Money} attribute as a {@code BIGINT} of minor units.
+ * The currency is not stored: all amounts are in {@link Money#CURRENCY}.
+ */
+@Converter(autoApply = true)
+public class MoneyConverter implements AttributeConverter<Money, Long> {
+
+    @Override
+    public Long convertToDatabaseColumn(Money money) {
+        if (money == null) {
+            return null;
+        }
+        if (!Money.CURRENCY.equals(money.currency())) {
+            throw new IllegalArgumentException("Only amounts in " + Money.CURRENCY + " can be stored: " + money);
+        }
+        return money.minorUnits();
+    }
+
+    @Override
+    public Money convertToEntityAttribute(Long minorUnits) {
+        return minorUnits != null ? Money.ofMinor(minorUnits) : null;
+    }
+}
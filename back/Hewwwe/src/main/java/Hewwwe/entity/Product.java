@@ -20,7 +20,10 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
  * Products have various states (available, sold, reserved) throughout their lifecycle.
  */
 @Entity
-@Table(name = "product")
+@Table(name = "product", indexes = {
+    @Index(name = "idx_product_status_publication", columnList = "status, publication_date, product_id"),
+    @Index(name = "idx_product_reserved_until", columnList = "reserved_until")
+})
 @Getter
 @Setter
 @Builder
@@ -30,11 +33,22 @@ public class Product {
 
     /**
      * Unique identifier for the product.
-     * Auto-generated by the database.
+     * Allocated in blocks from the id_generator table (see {@link IdGenerators}).
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "product_id")
+    @TableGenerator(name = "product_id", table = IdGenerators.TABLE, pkColumnName = IdGenerators.KEY_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "product",
+            allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long productId;
+
+    /**
+     * Optimistic locking version, incremented on every update of the product.
+     * Concurrent writers of the same product fail instead of overwriting each other.
+     */
+    @Version
+    @Column(nullable = false)
+    private long version;
     
     /**
      * Name of the product.
@@ -47,9 +61,10 @@ public class Product {
     private String description;
     
     /**
-     * Price of the product in the system's currency.
+     * Price of the product in the system's currency, stored in minor units.
      */
-    private Double price;
+    @Column(name = "price_minor")
+    private Money price;
     
     /**
      * URL or path to the product's image.
@@ -102,6 +117,14 @@ public class Product {
     @ManyToOne
     @JoinColumn(name = "cart_id")
     private Cart cart;
+
+    /**
+     * End of the hold placed on the product when it was added to its cart.
+     * Until then no other cart can take it; afterwards the hold is released and the product leaves the cart.
+     * This is null if the product is not held.
+     */
+    @JsonIgnore
+    private Date reservedUntil;
     
     /**
      * Exchanges in which this product is involved.
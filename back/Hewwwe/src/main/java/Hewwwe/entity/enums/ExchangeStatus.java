@@ -1,9 +1,48 @@
 package Hewwwe.entity.enums;
 
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Lifecycle of an exchange.
+ * <pre>
+ * PENDING --> ACCEPTED --> COMPLETED
+ *    |
+ *    +------> REJECTED | CANCELLED | EXPIRED
+ * </pre>
+ * REJECTED, CANCELLED, EXPIRED and COMPLETED are final.
+ */
 public enum ExchangeStatus {
     PENDING,
     ACCEPTED,
     REJECTED,
     COMPLETED,
-    CANCELLED
+    CANCELLED,
+    EXPIRED;
+
+    /**
+     * @return Statuses an exchange can move to this one from
+     */
+    public Set<ExchangeStatus> sources() {
+        return switch (this) {
+            case PENDING -> EnumSet.noneOf(ExchangeStatus.class);
+            case ACCEPTED, REJECTED, CANCELLED, EXPIRED -> EnumSet.of(PENDING);
+            case COMPLETED -> EnumSet.of(ACCEPTED);
+        };
+    }
+
+    /**
+     * Parses a status sent by a client.
+     *
+     * @param status Status name, in any case
+     * @return The status
+     * @throws IllegalArgumentException if there is no such status
+     */
+    public static ExchangeStatus parse(String status) {
+        try {
+            return valueOf(status.trim().toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException("Unknown exchange status: " + status);
+        }
+    }
 }
@@ -0,0 +1,15 @@
+package Hewwwe.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when a write loses a race against a concurrent one, e.g. a product sold
+ * by another checkout in the meantime. The client may reload and retry.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ConflictException extends RuntimeException {
+    public ConflictException(String message) {
+        super(message);
+    }
+}
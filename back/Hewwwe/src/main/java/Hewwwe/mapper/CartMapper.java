@@ -0,0 +1,34 @@
+package Hewwwe.mapper;
+
+import Hewwwe.dto.CartResponseDTO;
+import Hewwwe.entity.Cart;
+import org.mapstruct.InjectionStrategy;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.util.List;
+
+/**
+ * Mapper between {@link Cart} entities and their DTOs, generated by MapStruct at compile time.
+ */
+@Mapper(componentModel = "spring", uses = ProductMapper.class, injectionStrategy = InjectionStrategy.CONSTRUCTOR)
+public interface CartMapper {
+
+    /**
+     * Maps a cart to its response DTO, with the IDs of the products in it and its running total.
+     *
+     * @param cart Cart to map
+     * @return Cart as a DTO
+     */
+    @Mapping(target = "userId", source = "user.userId")
+    @Mapping(target = "productIds", source = "products")
+    CartResponseDTO toResponse(Cart cart);
+
+    /**
+     * Maps a list of carts to response DTOs.
+     *
+     * @param carts Carts to map
+     * @return List of cart DTOs
+     */
+    List<CartResponseDTO> toResponseList(List<Cart> carts);
+}
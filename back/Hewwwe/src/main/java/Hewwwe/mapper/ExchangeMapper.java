@@ -0,0 +1,76 @@
+package Hewwwe.mapper;
+
+import Hewwwe.dto.ExchangeResponseDTO;
+import Hewwwe.dto.ProductResponseDTO;
+import Hewwwe.entity.Exchange;
+import Hewwwe.entity.Product;
+import org.mapstruct.AfterMapping;
+import org.mapstruct.BeanMapping;
+import org.mapstruct.InjectionStrategy;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+
+import java.util.List;
+
+/**
+ * Mapper between {@link Exchange} entities and their DTOs, generated by MapStruct at compile time.
+ * Products inside an exchange are mapped with {@link ProductMapper#toSummary(Product)}.
+ */
+@Mapper(componentModel = "spring", uses = ProductMapper.class, injectionStrategy = InjectionStrategy.CONSTRUCTOR)
+public interface ExchangeMapper {
+
+    /**
+     * Maps an exchange to its response DTO, including both users and the exchanged products.
+     *
+     * @param exchange Exchange to map
+     * @return Exchange as a DTO
+     */
+    @Mapping(target = "requesterId", source = "requester.userId")
+    @Mapping(target = "requesterName", source = "requester.name")
+    @Mapping(target = "ownerId", source = "owner.userId")
+    @Mapping(target = "ownerName", source = "owner.name")
+    @Mapping(target = "products", source = "products", qualifiedByName = "summary")
+    ExchangeResponseDTO toResponse(Exchange exchange);
+
+    /**
+     * Maps a list of exchanges to response DTOs.
+     *
+     * @param exchanges Exchanges to map
+     * @return List of exchange DTOs
+     */
+    List<ExchangeResponseDTO> toResponseList(List<Exchange> exchanges);
+
+    /**
+     * Maps an exchange DTO back to an entity. Users and products are set as references holding only their IDs.
+     *
+     * @param exchangeDTO Exchange data
+     * @return Detached exchange
+     */
+    @Mapping(target = "requester.userId", source = "requesterId")
+    @Mapping(target = "owner.userId", source = "ownerId")
+    Exchange toEntity(ExchangeResponseDTO exchangeDTO);
+
+    /**
+     * Maps a product DTO inside an exchange to a reference holding only the product ID.
+     *
+     * @param productDTO Product data
+     * @return Product reference
+     */
+    @BeanMapping(ignoreByDefault = true)
+    @Mapping(target = "productId", source = "productId")
+    Product toProductReference(ProductResponseDTO productDTO);
+
+    /**
+     * The products of an exchange all belong to that exchange.
+     *
+     * @param exchange Mapped exchange
+     * @param exchangeDTO Resulting DTO
+     */
+    @AfterMapping
+    default void setProductsExchangeId(Exchange exchange, @MappingTarget ExchangeResponseDTO exchangeDTO) {
+        if (exchangeDTO.getProducts() != null) {
+            exchangeDTO.getProducts().forEach(product -> product.setExchangeId(exchange.getExchangeId()));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package Hewwwe.mapper;
+
+import Hewwwe.dto.InvoiceCreateDTO;
+import Hewwwe.dto.InvoiceLineDTO;
+import Hewwwe.dto.InvoiceResponseDTO;
+import Hewwwe.entity.Invoice;
+import Hewwwe.entity.InvoiceLine;
+import org.mapstruct.InjectionStrategy;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.util.List;
+
+/**
+ * Mapper between {@link Invoice} entities and their DTOs, generated by MapStruct at compile time.
+ */
+@Mapper(componentModel = "spring", uses = ProductMapper.class, injectionStrategy = InjectionStrategy.CONSTRUCTOR)
+public interface InvoiceMapper {
+
+    /**
+     * Maps an invoice to its response DTO, with its lines and the IDs of the invoiced products.
+     * Both come from the lines snapshotted at checkout, not from the current products.
+     *
+     * @param invoice Invoice to map
+     * @return Invoice as a DTO
+     */
+    @Mapping(target = "userId", source = "user.userId")
+    @Mapping(target = "userName", source = "user.name")
+    @Mapping(target = "addressId", source = "address.addressId")
+    @Mapping(target = "productIds", source = "lines")
+    @Mapping(target = "status", ignore = true)
+    @Mapping(target = "pdfUrl", ignore = true)
+    InvoiceResponseDTO toResponse(Invoice invoice);
+
+    /**
+     * Maps an invoice line to its DTO.
+     *
+     * @param line Line to map
+     * @return Line as a DTO
+     */
+    InvoiceLineDTO toLineResponse(InvoiceLine line);
+
+    /**
+     * Maps an invoice line to the ID of the product it was snapshotted from.
+     *
+     * @param line Line to map
+     * @return ID of the product
+     */
+    default Long toProductId(InvoiceLine line) {
+        return line.getProductId();
+    }
+
+    /**
+     * Maps a list of invoices to response DTOs.
+     *
+     * @param invoices Invoices to map
+     * @return List of invoice DTOs
+     */
+    List<InvoiceResponseDTO> toResponseList(List<Invoice> invoices);
+
+    /**
+     * Maps an invoice request to an entity. The user and the address are set as references holding only their IDs.
+     *
+     * @param invoiceDTO Invoice data
+     * @return Detached invoice
+     */
+    @Mapping(target = "invoiceId", ignore = true)
+    @Mapping(target = "user.userId", source = "userId")
+    @Mapping(target = "address.addressId", source = "addressId")
+    @Mapping(target = "products", ignore = true)
+    @Mapping(target = "lines", ignore = true)
+    @Mapping(target = "customerName", ignore = true)
+    @Mapping(target = "customerEmail", ignore = true)
+    @Mapping(target = "shippingAddress", ignore = true)
+    Invoice toEntity(InvoiceCreateDTO invoiceDTO);
+}
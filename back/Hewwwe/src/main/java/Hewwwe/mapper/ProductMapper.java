@@ -0,0 +1,92 @@
+package Hewwwe.mapper;
+
+import Hewwwe.dto.ProductResponseDTO;
+import Hewwwe.dto.ProductUpdateDTO;
+import Hewwwe.entity.Exchange;
+import Hewwwe.entity.Product;
+import org.mapstruct.InheritConfiguration;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.Named;
+
+import java.util.List;
+
+/**
+ * Mapper between {@link Product} entities and their DTOs.
+ * <p>
+ * The implementation is generated by MapStruct at compile time as plain getter/setter calls,
+ * so mapping does not use reflection and only touches the associations listed here.
+ */
+@Mapper(componentModel = "spring")
+public interface ProductMapper {
+
+    /**
+     * Maps a product to its response DTO, including owner, category, cart and first exchange.
+     *
+     * @param product Product to map
+     * @return Product as a DTO
+     */
+    @Mapping(target = "userId", source = "user.userId")
+    @Mapping(target = "userName", source = "user.name")
+    @Mapping(target = "userEmail", source = "user.email")
+    @Mapping(target = "categoryId", source = "category.categoryId")
+    @Mapping(target = "categoryName", source = "category.name")
+    @Mapping(target = "cartId", source = "cart.cartId")
+    @Mapping(target = "exchangeId", source = "exchanges", qualifiedByName = "firstExchangeId")
+    ProductResponseDTO toResponse(Product product);
+
+    /**
+     * Maps a list of products to response DTOs.
+     *
+     * @param products Products to map
+     * @return List of product DTOs
+     */
+    List<ProductResponseDTO> toResponseList(List<Product> products);
+
+    /**
+     * Maps a product without resolving its exchanges, for products already listed inside an exchange.
+     *
+     * @param product Product to map
+     * @return Product as a DTO, without exchange ID
+     */
+    @Named("summary")
+    @InheritConfiguration(name = "toResponse")
+    @Mapping(target = "exchangeId", ignore = true)
+    ProductResponseDTO toSummary(Product product);
+
+    /**
+     * Maps the update request of a product. The category is set as a reference holding only its ID.
+     *
+     * @param updateDTO Updated product data
+     * @return Detached product with the updated fields
+     */
+    @Mapping(target = "productId", ignore = true)
+    @Mapping(target = "publicationDate", ignore = true)
+    @Mapping(target = "user", ignore = true)
+    @Mapping(target = "category.categoryId", source = "categoryId")
+    @Mapping(target = "cart", ignore = true)
+    @Mapping(target = "exchanges", ignore = true)
+    @Mapping(target = "invoice", ignore = true)
+    Product toEntity(ProductUpdateDTO updateDTO);
+
+    /**
+     * Returns the ID of a product, used to map product lists to ID lists.
+     *
+     * @param product Product (may be null)
+     * @return ID of the product
+     */
+    default Long toId(Product product) {
+        return product != null ? product.getProductId() : null;
+    }
+
+    /**
+     * Returns the ID of the first exchange a product takes part in.
+     *
+     * @param exchanges Exchanges of the product (may be null)
+     * @return ID of the first exchange, or null if there is none
+     */
+    @Named("firstExchangeId")
+    default Long firstExchangeId(List<Exchange> exchanges) {
+        return exchanges == null || exchanges.isEmpty() ? null : exchanges.get(0).getExchangeId();
+    }
+}
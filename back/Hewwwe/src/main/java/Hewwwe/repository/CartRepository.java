@@ -1,13 +1,57 @@
 package Hewwwe.repository;
 
 import Hewwwe.entity.Cart;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 /**
  * Repository interface for Cart entity operations.
  * Provides CRUD operations for shopping carts in the system.
  */
 @Repository
 public interface CartRepository extends JpaRepository<Cart, Long> {
+    // Native SQL: the totals are computed on the minor-unit columns behind the Money attributes
+    String RECALCULATED_TOTALS =
+            "total_minor = (SELECT COALESCE(SUM(p.price_minor), 0) FROM product p WHERE p.cart_id = cart.cart_id), " +
+            "item_count = (SELECT COUNT(*) FROM product p WHERE p.cart_id = cart.cart_id)";
+
+    @Query("SELECT c FROM Cart c LEFT JOIN FETCH c.products WHERE c.user.userId = :userId")
+    Optional<Cart> findByUserIdWithProducts(@Param("userId") Long userId);
+
+    // Running totals are changed in the database, so concurrent operations on a cart never lose an update.
+    // The persistence context is flushed before and cleared after, so it never holds a stale cart.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE cart SET total_minor = total_minor + :amountMinor, item_count = item_count + :count, " +
+                   "version = version + 1 WHERE cart_id = :cartId", nativeQuery = true)
+    int addToTotals(@Param("cartId") Long cartId, @Param("amountMinor") long amountMinor, @Param("count") int count);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE cart SET total_minor = 0, item_count = 0, version = version + 1 WHERE cart_id = :cartId",
+           nativeQuery = true)
+    int resetTotals(@Param("cartId") Long cartId);
+
+    // Recomputes the totals from the products in the carts, for changes that cannot be applied as a delta
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE cart SET " + RECALCULATED_TOTALS + ", version = version + 1 WHERE cart_id IN (:cartIds)",
+           nativeQuery = true)
+    int recalculateTotals(@Param("cartIds") Collection<Long> cartIds);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE cart SET " + RECALCULATED_TOTALS, nativeQuery = true)
+    int recalculateAllTotals();
+
+    // Streams rows through a server-side cursor instead of materializing the whole table
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT c FROM Cart c")
+    Stream<Cart> streamAll();
 }
@@ -1,13 +1,78 @@
 package Hewwwe.repository;
 
 import Hewwwe.entity.Exchange;
+import Hewwwe.entity.enums.ExchangeStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ExchangeRepository extends JpaRepository<Exchange, Long> {
     List<Exchange> findByRequester_UserId(Long requesterId);
     List<Exchange> findByOwner_UserId(Long ownerId);
+
+    // Newest first; a null status matches every exchange
+    @Query(value = "SELECT e.exchangeId FROM Exchange e " +
+                   "WHERE (e.requester.userId = :userId OR e.owner.userId = :userId) " +
+                   "AND (:status IS NULL OR e.status = :status) " +
+                   "ORDER BY e.exchangeDate DESC, e.exchangeId DESC",
+           countQuery = "SELECT COUNT(e) FROM Exchange e " +
+                        "WHERE (e.requester.userId = :userId OR e.owner.userId = :userId) " +
+                        "AND (:status IS NULL OR e.status = :status)")
+    Page<Long> findIdsByUser(@Param("userId") Long userId, @Param("status") ExchangeStatus status, Pageable pageable);
+
+    /**
+     * Loads exchanges with everything their DTO needs in one statement: both users, the products,
+     * and the owner, category and cart of every product. The users' carts are fetched as well,
+     * since the one-to-one from a user to its cart loads eagerly.
+     */
+    @EntityGraph(attributePaths = {"requester.cart", "owner.cart", "products.user.cart", "products.category",
+            "products.cart.user"})
+    @Query("SELECT DISTINCT e FROM Exchange e WHERE e.exchangeId IN :ids")
+    List<Exchange> findAllWithDetailsById(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT p.productId FROM Exchange e JOIN e.products p WHERE e.exchangeId = :id")
+    List<Long> findProductIds(@Param("id") Long id);
+
+    @Query("SELECT e.exchangeId FROM Exchange e WHERE e.status = :status AND e.exchangeDate < :before " +
+           "ORDER BY e.exchangeDate")
+    List<Long> findIdsByStatusBefore(@Param("status") ExchangeStatus status, @Param("before") Date before,
+                                     Pageable pageable);
+
+    // Conditional transitions: an exchange only moves if it is still in one of the source statuses,
+    // so of two concurrent transitions exactly one wins and callers compare the count to find out.
+    // The persistence context is flushed before and cleared after, so it never holds a stale exchange.
+    // The completion date is only written when completedAt is given, i.e. when the target is COMPLETED.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Exchange e SET e.status = :target, e.completionDate = COALESCE(:completedAt, e.completionDate), " +
+           "e.version = e.version + 1 WHERE e.exchangeId IN :ids AND e.status IN :sources")
+    int transition(@Param("ids") Collection<Long> ids, @Param("target") ExchangeStatus target,
+                   @Param("sources") Collection<ExchangeStatus> sources, @Param("completedAt") Date completedAt);
+
+    // Rejects the other pending exchanges involving any of the products. Native SQL, because MySQL cannot
+    // select from the table being updated: the subquery reads the join table only.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE exchange SET status = 'REJECTED', version = version + 1 " +
+                   "WHERE status = 'PENDING' AND exchange_id <> :id AND exchange_id IN " +
+                   "(SELECT ep.exchange_id FROM exchange_products ep WHERE ep.product_id IN (:productIds))",
+           nativeQuery = true)
+    int rejectCompeting(@Param("id") Long id, @Param("productIds") Collection<Long> productIds);
+
+    // Streams rows through a server-side cursor instead of materializing the whole table
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT e FROM Exchange e")
+    Stream<Exchange> streamAll();
 }
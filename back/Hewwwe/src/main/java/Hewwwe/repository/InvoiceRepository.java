@@ -2,13 +2,49 @@ package Hewwwe.repository;
 
 import Hewwwe.entity.Invoice;
 import Hewwwe.entity.Address;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
+    @EntityGraph(attributePaths = {"user", "lines"})
     List<Invoice> findByUser_UserId(Long userId);  // Changed from findByUserId
     List<Invoice> findByAddress(Address address);
+
+    // Streams rows through a server-side cursor instead of materializing the whole table
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT i FROM Invoice i")
+    Stream<Invoice> streamAll();
+
+    @Query("SELECT i.version FROM Invoice i WHERE i.invoiceId = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    // Everything printed on the invoice document, in one query
+    @EntityGraph(attributePaths = {"user", "address", "lines"})
+    Optional<Invoice> findWithDetailsByInvoiceId(Long invoiceId);
+
+    @EntityGraph(attributePaths = {"user", "address", "lines"})
+    List<Invoice> findWithDetailsByInvoiceIdIn(Collection<Long> invoiceIds);
+
+    @Query("SELECT COUNT(i) FROM Invoice i WHERE i.invoiceDate >= :from AND i.invoiceDate < :to")
+    long countByDateRange(@Param("from") Date from, @Param("to") Date to);
+
+    // Next IDs of a date range after the given one (keyset pagination: no offset to skip)
+    @Query("SELECT i.invoiceId FROM Invoice i WHERE i.invoiceDate >= :from AND i.invoiceDate < :to " +
+           "AND i.invoiceId > :after ORDER BY i.invoiceId")
+    List<Long> findIdsByDateRange(@Param("from") Date from, @Param("to") Date to, @Param("after") Long after,
+                                  Pageable pageable);
 }
@@ -1,17 +1,181 @@
 package Hewwwe.repository;
 
+import Hewwwe.dto.ProductHoldDTO;
+import Hewwwe.dto.ProductListingDTO;
+import Hewwwe.dto.ProductResponseDTO;
+import Hewwwe.entity.Cart;
 import Hewwwe.entity.Category;
+import Hewwwe.entity.Invoice;
 import Hewwwe.entity.Product;
 import Hewwwe.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    /**
+     * Selects exactly the columns of {@link ProductResponseDTO} in one joined query,
+     * so listings never hydrate Product entities nor lazy-load their exchanges.
+     * The exchange ID is the lowest one the product takes part in.
+     */
+    String DTO_SELECT = "SELECT new Hewwwe.dto.ProductResponseDTO(" +
+            "p.productId, p.name, p.description, p.price, p.image, p.size, p.status, p.publicationDate, " +
+            "u.userId, u.name, u.email, c.categoryId, c.name, ca.cartId, " +
+            "(SELECT MIN(e.exchangeId) FROM Exchange e JOIN e.products ep WHERE ep.productId = p.productId)) " +
+            "FROM Product p JOIN p.user u JOIN p.category c LEFT JOIN p.cart ca ";
+
     List<Product> findByUser(User user);
     List<Product> findByCategory(Category category);
     List<Product> findByStatus(String status);
-    List<Product> findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCase(String name, String description);
+
+    @Query(DTO_SELECT)
+    List<ProductResponseDTO> findAllDtos();
+
+    // Streams rows through a server-side cursor instead of materializing the whole table
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(DTO_SELECT)
+    Stream<ProductResponseDTO> streamAllDtos();
+
+    @Query(DTO_SELECT + "WHERE p.status = :status")
+    List<ProductResponseDTO> findDtosByStatus(@Param("status") String status);
+
+    @Query(DTO_SELECT + "WHERE c.categoryId = :categoryId")
+    List<ProductResponseDTO> findDtosByCategoryId(@Param("categoryId") Long categoryId);
+
+    @Query(DTO_SELECT + "WHERE u.userId = :userId")
+    List<ProductResponseDTO> findDtosByUserId(@Param("userId") Long userId);
+
+    @Query(DTO_SELECT + "WHERE p.productId IN :ids")
+    List<ProductResponseDTO> findDtosByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Keyset pagination, newest first: (publicationDate, productId) is the cursor
+    @Query(DTO_SELECT + "WHERE p.status = :status " +
+           "ORDER BY p.publicationDate DESC, p.productId DESC")
+    List<ProductResponseDTO> findFirstPageByStatus(@Param("status") String status, Pageable pageable);
+
+    @Query(DTO_SELECT + "WHERE p.status = :status " +
+           "AND (p.publicationDate < :publicationDate " +
+           "OR (p.publicationDate = :publicationDate AND p.productId < :productId)) " +
+           "ORDER BY p.publicationDate DESC, p.productId DESC")
+    List<ProductResponseDTO> findPageByStatusAfter(@Param("status") String status,
+                                                   @Param("publicationDate") Date publicationDate,
+                                                   @Param("productId") Long productId,
+                                                   Pageable pageable);
+
+    /**
+     * Loads the products of a cart for checkout. The seller (with the cart its inverse
+     * one-to-one loads eagerly) and the category are fetched in the same statement,
+     * so the number of queries does not grow with the cart.
+     */
+    @Query("SELECT p FROM Product p JOIN FETCH p.user u LEFT JOIN FETCH u.cart JOIN FETCH p.category " +
+           "WHERE p.cart.cartId = :cartId")
+    List<Product> findInCart(@Param("cartId") Long cartId);
+
+    // Same fetch plan as findInCart, plus the cart the products are in
+    @Query("SELECT p FROM Product p JOIN FETCH p.user u LEFT JOIN FETCH u.cart JOIN FETCH p.category " +
+           "LEFT JOIN FETCH p.cart ca LEFT JOIN FETCH ca.user WHERE p.productId IN :ids")
+    List<Product> findAllWithCartById(@Param("ids") Collection<Long> ids);
+
+    // Conditional AVAILABLE -> SOLD transitions: a product already sold is left untouched and not counted,
+    // so callers compare the count with the number of IDs to detect a lost race.
+    // The persistence context is flushed before and cleared after, so it never holds stale products.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.status = 'SOLD', p.cart = null, p.reservedUntil = null, p.invoice = :invoice, " +
+           "p.version = p.version + 1 " +
+           "WHERE p.productId IN :ids AND p.status = 'AVAILABLE'")
+    int markSold(@Param("ids") Collection<Long> ids, @Param("invoice") Invoice invoice);
+
+    // Without an invoice (exchanges): a sold product also leaves whichever cart was holding it
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.status = 'SOLD', p.cart = null, p.reservedUntil = null, " +
+           "p.version = p.version + 1 WHERE p.productId IN :ids AND p.status = 'AVAILABLE'")
+    int markSold(@Param("ids") Collection<Long> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.cart = null, p.reservedUntil = null, p.version = p.version + 1 " +
+           "WHERE p.cart.cartId = :cartId")
+    int removeAllFromCart(@Param("cartId") Long cartId);
+
+    // Renews the hold of a product already in the cart
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.reservedUntil = :until, p.version = p.version + 1 " +
+           "WHERE p.productId = :productId AND p.status = 'AVAILABLE' AND p.cart = :cart")
+    int renewHold(@Param("productId") Long productId, @Param("cart") Cart cart, @Param("until") Date until);
+
+    // Places a hold: only if the product is available and not held by another cart
+    // (a cart without a hold, as left by older versions, does not count as one)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.cart = :cart, p.reservedUntil = :until, p.version = p.version + 1 " +
+           "WHERE p.productId = :productId AND p.status = 'AVAILABLE' " +
+           "AND (p.cart IS NULL OR p.reservedUntil IS NULL OR p.reservedUntil <= :now)")
+    int takeHold(@Param("productId") Long productId, @Param("cart") Cart cart,
+                 @Param("until") Date until, @Param("now") Date now);
+
+    // Batch variant of renewHold and takeHold: places or renews the holds of many products in one statement
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.cart = :cart, p.reservedUntil = :until, p.version = p.version + 1 " +
+           "WHERE p.productId IN :ids AND p.status = 'AVAILABLE' " +
+           "AND (p.cart IS NULL OR p.cart = :cart OR p.reservedUntil IS NULL OR p.reservedUntil <= :now)")
+    int holdAll(@Param("ids") Collection<Long> ids, @Param("cart") Cart cart,
+                @Param("until") Date until, @Param("now") Date now);
+
+    // Other carts whose hold on any of the products holdAll would take over
+    @Query("SELECT DISTINCT p.cart.cartId FROM Product p WHERE p.productId IN :ids AND p.status = 'AVAILABLE' " +
+           "AND p.cart <> :cart AND (p.reservedUntil IS NULL OR p.reservedUntil <= :now)")
+    List<Long> findCartIdsOfTakeableHolds(@Param("ids") Collection<Long> ids, @Param("cart") Cart cart,
+                                          @Param("now") Date now);
+
+    @Query("SELECT p.productId FROM Product p WHERE p.productId IN :ids AND p.cart.cartId = :cartId")
+    Set<Long> findIdsInCart(@Param("ids") Collection<Long> ids, @Param("cartId") Long cartId);
+
+    @Query("SELECT p.cart.cartId FROM Product p WHERE p.productId = :productId")
+    Optional<Long> findCartIdById(@Param("productId") Long productId);
+
+    // Locks the holds that really expired, so none of them can be renewed before they are released
+    @Query(value = "SELECT product_id FROM product WHERE product_id IN (:ids) AND reserved_until <= :now FOR UPDATE",
+           nativeQuery = true)
+    List<Long> lockExpiredHolds(@Param("ids") Collection<Long> ids, @Param("now") Date now);
+
+    @Query("SELECT DISTINCT p.cart.cartId FROM Product p WHERE p.productId IN :ids AND p.reservedUntil <= :now")
+    List<Long> findCartIdsOfExpiredHolds(@Param("ids") Collection<Long> ids, @Param("now") Date now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.cart = null, p.reservedUntil = null, p.version = p.version + 1 " +
+           "WHERE p.productId = :productId AND p.cart.cartId = :cartId")
+    int removeFromCart(@Param("productId") Long productId, @Param("cartId") Long cartId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.cart = null, p.reservedUntil = null, p.version = p.version + 1 " +
+           "WHERE p.productId IN :ids AND p.cart.cartId = :cartId")
+    int removeAllFromCart(@Param("ids") Collection<Long> ids, @Param("cartId") Long cartId);
+
+    // Releases the given holds if they really expired: one renewed in the meantime is left alone
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Product p SET p.cart = null, p.reservedUntil = null, p.version = p.version + 1 " +
+           "WHERE p.productId IN :ids AND p.reservedUntil <= :now")
+    int releaseExpiredHolds(@Param("ids") Collection<Long> ids, @Param("now") Date now);
+
+    @Query("SELECT new Hewwwe.dto.ProductHoldDTO(p.productId, p.reservedUntil) FROM Product p " +
+           "WHERE p.reservedUntil IS NOT NULL")
+    List<ProductHoldDTO> findHolds();
+
+    // Every available product with its owner, kind and the user whose cart holds it
+    @Query("SELECT new Hewwwe.dto.ProductListingDTO(p.productId, p.user.userId, p.category.categoryId, p.size, " +
+           "p.price, cu.userId) FROM Product p LEFT JOIN p.cart ca LEFT JOIN ca.user cu WHERE p.status = 'AVAILABLE'")
+    List<ProductListingDTO> findListings();
 }
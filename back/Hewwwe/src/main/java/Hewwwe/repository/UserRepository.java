@@ -2,14 +2,17 @@ package Hewwwe.repository;
 
 import Hewwwe.entity.User;
 import Hewwwe.entity.enums.Rol;
-
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -49,4 +52,9 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByIdWithAddressesAndProducts(@Param("userId") Long userId);
 
     Optional<User> findByUsernameOrEmail(String username, String email);
+
+    // Streams rows through a server-side cursor instead of materializing the whole table
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT u FROM User u")
+    Stream<User> streamAll();
 }
\ No newline at end of file
@@ -1,19 +1,24 @@
 package Hewwwe.services;
 
+import Hewwwe.dto.CartOperationDTO;
 import Hewwwe.entity.Cart;
+import Hewwwe.entity.Money;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface CartService {
     void checkoutCart(Long cartId, Object addressData);
     Cart findById(Long id);
     List<Cart> findAll();
+    Stream<Cart> streamAll();
     Cart save(Cart cart);
     Cart update(Long id, Cart cart);
     void delete(Long id);
     void deleteCart(Long cartId);
     void addProduct(Long cartId, Long productId);
     void removeProduct(Long cartId, Long productId);
+    List<Long> applyOperations(Long cartId, List<CartOperationDTO> operations);
     void clearCart(Long cartId);
-    Double calculateTotal(Long cartId);
+    Money calculateTotal(Long cartId);
 }
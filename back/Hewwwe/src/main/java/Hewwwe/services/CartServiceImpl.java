@@ -1,18 +1,35 @@
 package Hewwwe.services;
 
+import Hewwwe.dto.CartOperationDTO;
 import Hewwwe.entity.Cart;
 import Hewwwe.entity.Product;
 import Hewwwe.entity.Invoice;
+import Hewwwe.entity.InvoiceLine;
 import Hewwwe.entity.Address;
+import Hewwwe.entity.Money;
+import Hewwwe.exception.ConflictException;
 import Hewwwe.exception.ResourceNotFoundException;
 import Hewwwe.repository.CartRepository;
+import Hewwwe.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Implementation of the Cart Service that handles all shopping cart operations.
@@ -20,11 +37,16 @@ import java.util.Map;
  */
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class CartServiceImpl implements CartService {
     private final CartRepository cartRepository;
+    private final ProductRepository productRepository;
     private final InvoiceService invoiceService;
     private final ProductService productService;
     private final AddressService addressService;
+    private final ReservationService reservationService;
+    private final CartSummaryCache cartSummaryCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Finds a cart by its ID.
@@ -49,6 +71,17 @@ public class CartServiceImpl implements CartService {
         return cartRepository.findAll();
     }
 
+    /**
+     * Streams all carts through a database cursor.
+     * Must be consumed and closed inside a transaction.
+     *
+     * @return Stream of all carts
+     */
+    @Override
+    public Stream<Cart> streamAll() {
+        return cartRepository.streamAll();
+    }
+
     /**
      * Saves a new cart or updates an existing cart.
      *
@@ -68,11 +101,15 @@ public class CartServiceImpl implements CartService {
      * @return The updated cart
      */
     @Override
+    @Transactional
     public Cart update(Long id, Cart cart) {
         Cart existingCart = findById(id);
         existingCart.setCartDate(cart.getCartDate());
         existingCart.setProducts(cart.getProducts());
-        return cartRepository.save(existingCart);
+        Cart savedCart = cartRepository.save(existingCart);
+        cartRepository.recalculateTotals(List.of(id));
+        cartSummaryCache.evictCart(id);
+        return savedCart;
     }
 
     /**
@@ -83,6 +120,7 @@ public class CartServiceImpl implements CartService {
     @Override
     public void delete(Long id) {
         cartRepository.deleteById(id);
+        cartSummaryCache.evictCart(id);
     }
 
     /**
@@ -93,15 +131,25 @@ public class CartServiceImpl implements CartService {
     @Override
     public void deleteCart(Long cartId) {
         cartRepository.deleteById(cartId);
+        cartSummaryCache.evictCart(cartId);
     }
 
     /**
      * Checks out a cart, creating an invoice and clearing the cart.
+     * <p>
+     * Runs in a single transaction with a constant number of statements whatever the cart size:
+     * the available products of the cart are read with one query, the invoice is inserted,
+     * and the products are marked as sold and taken out of the cart with set-based updates.
+     * <p>
+     * No lock is held while reading: the products only become SOLD if they are still AVAILABLE,
+     * and if a concurrent checkout or exchange took any of them first the whole checkout is rolled back.
      *
      * @param cartId The ID of the cart to checkout
      * @param addressData The shipping address data (can be an Address object or a Map)
+     * @throws ConflictException if some product was sold in the meantime
      */
     @Override
+    @Transactional
     public void checkoutCart(Long cartId, Object addressData) {
         Cart cart = findById(cartId);
         Address shippingAddress = null;
@@ -125,7 +173,7 @@ public class CartServiceImpl implements CartService {
                 shippingAddress.setCity(addressMap.getOrDefault("city", "").toString());
                 shippingAddress.setCountry(addressMap.getOrDefault("country", "").toString());
                 shippingAddress.setPostalCode(addressMap.getOrDefault("postalCode", "").toString());
-                shippingAddress.setUser(cart.getUser());
+                shippingAddress = addressService.createAddress(shippingAddress, cart.getUser().getUserId());
             }
         } else if (addressData instanceof Address) {
             // Direct Address object
@@ -134,15 +182,11 @@ public class CartServiceImpl implements CartService {
             throw new IllegalArgumentException("Invalid address data type");
         }
         
-        // Validar y filtrar productos
-        List<Product> validProducts = new ArrayList<>();
-        for (Product product : cart.getProducts()) {
-            if (product != null && product.getProductId() != null) {
-                validProducts.add(product);
-            }
-        }
-        
-        if (validProducts.isEmpty()) {
+        List<Product> inCart = productRepository.findInCart(cartId);
+        List<Product> products = inCart.stream()
+                .filter(product -> "AVAILABLE".equals(product.getStatus()))
+                .toList();
+        if (products.isEmpty()) {
             throw new IllegalStateException("No valid products found in cart for checkout");
         }
         
@@ -151,114 +195,187 @@ public class CartServiceImpl implements CartService {
         invoice.setInvoiceDate(new Date());
         invoice.setUser(cart.getUser());
         invoice.setAddress(shippingAddress);
-        invoice.setProducts(validProducts);
-        invoice.setTotalAmount(calculateTotal(cartId));
+        invoice.snapshotCustomer();
+        invoice.setProducts(products);
+        invoice.setTotalAmount(Money.sum(products, Product::getPrice));
+        for (Product product : products) {
+            invoice.getLines().add(new InvoiceLine(invoice, product));
+        }
+        // The lines are persisted in cascade, in the same JDBC batch as the invoice
+        invoice = invoiceService.save(invoice);
         
-        invoiceService.save(invoice);
+        // Mark the products as SOLD and empty the cart, leftovers that are no longer available included
+        List<Long> productIds = products.stream().map(Product::getProductId).toList();
+        if (productRepository.markSold(productIds, invoice) != productIds.size()) {
+            throw new ConflictException("Some products in the cart have just been sold, review the cart and try again");
+        }
+        productRepository.removeAllFromCart(cartId);
+        cartRepository.resetTotals(cartId);
         
-        // Mark all products as SOLD
-        for (Product product : validProducts) {
-            try {
+        // The updates bypassed the persistence context: reflect them on the (now detached) products for the listeners
+        Set<Long> sold = new HashSet<>(productIds);
+        for (Product product : inCart) {
+            if (sold.contains(product.getProductId())) {
                 product.setStatus("SOLD");
-                productService.save(product);
-            } catch (Exception e) {
-                System.err.println("CartService: Error marking product " + product.getProductId() + " as SOLD: " + e.getMessage());
-                // Continue with other products even if one fails
+                product.setInvoice(invoice);
             }
+            product.setCart(null);
+            product.setReservedUntil(null);
+            eventPublisher.publishEvent(ProductChangedEvent.saved(product));
         }
-        
-        // Clear the cart after checkout
-        clearCart(cartId);
     }
 
     /**
-     * Adds a product to the cart.
+     * Adds a product to the cart, holding it for a limited time so no other cart can take it.
+     * Adding a product already in the cart renews its hold.
      *
      * @param cartId The ID of the cart
      * @param productId The ID of the product to add
+     * @throws ConflictException if the product is sold or held by another cart
      */
     @Override
+    @Transactional
     public void addProduct(Long cartId, Long productId) {
         Cart cart = findById(cartId);
-        
         Product product = productService.getEntityById(productId);
-        if (product != null) {
-            // Check if product is already in cart
-            boolean alreadyInCart = cart.getProducts().stream()
-                .anyMatch(p -> p.getProductId().equals(productId));
-                
-            if (alreadyInCart) {
-                return;
-            }
-            
-            // Set bidirectional relationship
-            product.setCart(cart);
-            cart.getProducts().add(product);
-            
-            cartRepository.save(cart);
+        
+        ReservationService.Hold hold = reservationService.hold(cart, productId);
+        if (hold.added()) {
+            cartRepository.addToTotals(cartId, product.getPrice().minorUnits(), 1);
         }
+        if (hold.previousCartId() != null && !hold.previousCartId().equals(cartId)) {
+            // Taken over from an expired hold in another cart
+            cartRepository.recalculateTotals(List.of(hold.previousCartId()));
+        }
+        
+        // The hold was written with an update: reflect it on the (now detached) product for the listeners
+        product.setCart(cart);
+        product.setReservedUntil(hold.reservedUntil());
+        eventPublisher.publishEvent(ProductChangedEvent.saved(product));
     }
 
     /**
-     * Removes a product from the cart.
+     * Removes a product from the cart. Does nothing if the product is not in the cart.
      *
      * @param cartId The ID of the cart
      * @param productId The ID of the product to remove
      */
     @Override
+    @Transactional
     public void removeProduct(Long cartId, Long productId) {
-        Cart cart = findById(cartId);
-        // Find the product and remove the bidirectional relationship
-        cart.getProducts().stream()
-            .filter(product -> product.getProductId().equals(productId))
-            .findFirst()
-            .ifPresent(product -> {
-                product.setCart(null); // Remove the reference from product to cart
-                cart.getProducts().remove(product);
-            });
-        cartRepository.save(cart);
+        productRepository.findById(productId).ifPresent(product -> {
+            // Only the call that actually takes the product out of the cart updates the totals
+            if (productRepository.removeFromCart(productId, cartId) == 1) {
+                cartRepository.addToTotals(cartId, -product.getPrice().minorUnits(), -1);
+                product.setCart(null);
+                product.setReservedUntil(null);
+                eventPublisher.publishEvent(ProductChangedEvent.saved(product));
+            }
+        });
     }
 
     /**
-     * Clears all products from the cart.
+     * Applies a batch of add and remove operations to the cart in one transaction.
+     * <p>
+     * When a product appears more than once its last operation wins. Removals are applied with one update,
+     * additions are held with another, and the cart total is recomputed once, so the number of statements
+     * does not depend on the size of the batch. Products that cannot be added are reported rather than
+     * failing the whole batch.
      *
-     * @param cartId The ID of the cart to clear
+     * @param cartId The ID of the cart
+     * @param operations The operations to apply, in order
+     * @return IDs of the products that could not be added (not found, sold or held by another cart)
      */
     @Override
-    public void clearCart(Long cartId) {
+    @Transactional
+    public List<Long> applyOperations(Long cartId, List<CartOperationDTO> operations) {
         Cart cart = findById(cartId);
-        
-        try {
-            cart.clearCart();
-            
-            // Additional verification
-            if (cart.getProducts().size() > 0) {
-                // Force clear if necessary
-                for (Product product : new ArrayList<>(cart.getProducts())) {
+        Map<Long, CartOperationDTO.Action> actions = new LinkedHashMap<>();
+        operations.forEach(operation -> actions.put(operation.getProductId(), operation.getAction()));
+        Set<Long> toAdd = new LinkedHashSet<>();
+        Set<Long> toRemove = new HashSet<>();
+        actions.forEach((productId, action) ->
+                (action == CartOperationDTO.Action.ADD ? toAdd : toRemove).add(productId));
+
+        // Read before the updates below clear the persistence context
+        Map<Long, Product> products = productRepository.findAllWithCartById(actions.keySet()).stream()
+                .collect(Collectors.toMap(Product::getProductId, Function.identity()));
+        List<Product> changed = new ArrayList<>();
+        Set<Long> cartIds = new HashSet<>(Set.of(cartId));
+
+        if (!toRemove.isEmpty()) {
+            Set<Long> removed = productRepository.findIdsInCart(toRemove, cartId);
+            if (!removed.isEmpty()) {
+                productRepository.removeAllFromCart(removed, cartId);
+                removed.forEach(productId -> {
+                    Product product = products.get(productId);
                     product.setCart(null);
+                    product.setReservedUntil(null);
+                    changed.add(product);
+                });
+            }
+        }
+
+        List<Long> rejected = new ArrayList<>();
+        if (!toAdd.isEmpty()) {
+            ReservationService.BatchHold hold = reservationService.holdAll(cart, toAdd);
+            cartIds.addAll(hold.previousCartIds());
+            for (Long productId : toAdd) {
+                Product product = products.get(productId);
+                if (product == null || !hold.heldProductIds().contains(productId)) {
+                    rejected.add(productId);
+                    continue;
                 }
-                cart.getProducts().clear();
+                product.setCart(cart);
+                product.setReservedUntil(hold.reservedUntil());
+                changed.add(product);
             }
-            
-            cartRepository.save(cart);
-        } catch (Exception e) {
-            System.err.println("CartService: Error clearing cart: " + e.getMessage());
-            e.printStackTrace();
-            throw e; // Re-throw to ensure callers know there was a problem
         }
+
+        cartRepository.recalculateTotals(cartIds);
+        changed.forEach(product -> eventPublisher.publishEvent(ProductChangedEvent.saved(product)));
+        return rejected;
+    }
+
+    /**
+     * Clears all products from the cart.
+     *
+     * @param cartId The ID of the cart to clear
+     */
+    @Override
+    @Transactional
+    public void clearCart(Long cartId) {
+        findById(cartId);
+        List<Product> removedProducts = productRepository.findInCart(cartId);
+        productRepository.removeAllFromCart(cartId);
+        cartRepository.resetTotals(cartId);
+        
+        removedProducts.forEach(product -> {
+            product.setCart(null);
+            product.setReservedUntil(null);
+            eventPublisher.publishEvent(ProductChangedEvent.saved(product));
+        });
     }
 
     /**
-     * Calculates the total amount for the cart.
+     * Returns the total amount of the cart, kept up to date by every cart operation.
      *
      * @param cartId The ID of the cart
      * @return The total amount
      */
     @Override
-    public Double calculateTotal(Long cartId) {
-        Cart cart = findById(cartId);
-        return cart.getProducts().stream()
-                .mapToDouble(Product::getPrice)
-                .sum();
+    public Money calculateTotal(Long cartId) {
+        return findById(cartId).getTotal();
+    }
+
+    /**
+     * Recomputes the running totals of every cart once at startup, for carts filled
+     * before the totals existed or by bulk inserts.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void reconcileTotals() {
+        int carts = cartRepository.recalculateAllTotals();
+        log.info("Reconciled the totals of {} carts", carts);
     }
 }
@@ -0,0 +1,191 @@
+package Hewwwe.services;
+
+import Hewwwe.dto.CartResponseDTO;
+import Hewwwe.entity.Cart;
+import Hewwwe.entity.Money;
+import Hewwwe.entity.Product;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * In-memory read model of the users' carts: cart ID, product IDs and running total, keyed by user.
+ * <p>
+ * A summary is loaded from the database the first time a user's cart is read and then kept
+ * up to date incrementally from the {@link ProductChangedEvent}s the cart operations publish
+ * (add, remove, clear, checkout) once their transaction has committed. Applying a change is
+ * idempotent, so a change already seen by the load is harmless.
+ * <p>
+ * A change applied while a load is running cannot reach the summary being loaded, and the load may
+ * have read the cart before that change committed. Every change bumps a generation counter, and a
+ * load only installs its summary if the generation is the one it started with; otherwise it loads again.
+ */
+@Component
+public class CartSummaryCache {
+
+    /**
+     * Immutable snapshot of a cart; every change builds a new one.
+     *
+     * @param prices Price of every product in the cart, in the order they were added
+     */
+    private record Summary(Long cartId, Date cartDate, Long userId, Map<Long, Money> prices, Money total) {
+
+        static Summary of(Cart cart) {
+            Map<Long, Money> prices = new LinkedHashMap<>();
+            for (Product product : cart.getProducts()) {
+                prices.put(product.getProductId(), product.getPrice());
+            }
+            return new Summary(cart.getCartId(), cart.getCartDate(), cart.getUser().getUserId(), prices,
+                    Money.sum(prices.values(), Function.identity()));
+        }
+
+        Summary with(Long productId, Money price) {
+            Map<Long, Money> copy = new LinkedHashMap<>(prices);
+            Money previous = copy.put(productId, price);
+            return new Summary(cartId, cartDate, userId, copy,
+                    total.minus(previous != null ? previous : Money.ZERO).plus(price));
+        }
+
+        Summary without(Long productId) {
+            if (!prices.containsKey(productId)) {
+                return this;
+            }
+            Map<Long, Money> copy = new LinkedHashMap<>(prices);
+            Money previous = copy.remove(productId);
+            return new Summary(cartId, cartDate, userId, copy, total.minus(previous));
+        }
+
+        CartResponseDTO toResponse() {
+            return new CartResponseDTO(cartId, cartDate, userId, new ArrayList<>(prices.keySet()), total, prices.size());
+        }
+    }
+
+    // Loads retried after overlapping a change before the cart is returned without caching it
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+
+    // userId -> summary of the user's cart
+    private final Map<Long, Summary> summaries = new ConcurrentHashMap<>();
+
+    // productId -> userId whose cached cart holds the product
+    private final Map<Long, Long> holders = new ConcurrentHashMap<>();
+
+    // Number of changes applied so far; guarded by this, like every write to the two maps
+    private long generation;
+
+    /**
+     * Returns the cart of a user, loading it on the first read.
+     *
+     * @param userId The ID of the user
+     * @param loader Loads (or creates) the cart of the user, or returns null if the user does not exist
+     * @return The cart summary, or null if the user does not exist
+     */
+    public CartResponseDTO get(Long userId, Function<Long, Cart> loader) {
+        Summary loaded = null;
+        for (int attempt = 0; attempt < MAX_LOAD_ATTEMPTS; attempt++) {
+            Summary cached = summaries.get(userId);
+            if (cached != null) {
+                return cached.toResponse();
+            }
+            long startedAt = generation();
+            Cart cart = loader.apply(userId);
+            if (cart == null) {
+                return null;
+            }
+            loaded = Summary.of(cart);
+            if (install(userId, loaded, startedAt)) {
+                return loaded.toResponse();
+            }
+        }
+        // Changes keep arriving: serve the latest load without caching it
+        return loaded.toResponse();
+    }
+
+    private synchronized long generation() {
+        return generation;
+    }
+
+    // Caches a loaded summary unless a change was applied since the load started
+    private synchronized boolean install(Long userId, Summary loaded, long startedAt) {
+        if (generation != startedAt) {
+            return false;
+        }
+        remove(userId);
+        loaded.prices().keySet().forEach(productId -> holders.put(productId, userId));
+        summaries.put(userId, loaded);
+        return true;
+    }
+
+    /**
+     * Moves a product between cached carts once the write that changed it has committed.
+     *
+     * @param event Product change published by the service layer
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        generation++;
+        Long productId = event.productId();
+        Long previousHolder = holders.remove(productId);
+        if (previousHolder != null) {
+            summaries.computeIfPresent(previousHolder, (id, summary) -> summary.without(productId));
+        }
+
+        Product product = event.product();
+        if (product != null && product.getCart() != null && product.getCart().getUser() != null) {
+            summaries.computeIfPresent(product.getCart().getUser().getUserId(), (id, summary) -> {
+                holders.put(productId, id);
+                return summary.with(productId, product.getPrice());
+            });
+        }
+    }
+
+    /**
+     * Drops the cached carts holding any of the given products, for writes that do not publish
+     * product events (e.g. bulk release of expired holds). They are reloaded on the next read.
+     *
+     * @param productIds IDs of the changed products
+     */
+    public synchronized void evictProducts(Iterable<Long> productIds) {
+        generation++;
+        for (Long productId : productIds) {
+            Long holder = holders.get(productId);
+            if (holder != null) {
+                remove(holder);
+            }
+        }
+    }
+
+    /**
+     * Drops the cached cart of a user.
+     *
+     * @param userId The ID of the user
+     */
+    public synchronized void evictUser(Long userId) {
+        generation++;
+        remove(userId);
+    }
+
+    private void remove(Long userId) {
+        Summary summary = summaries.remove(userId);
+        if (summary != null) {
+            summary.prices().keySet().forEach(productId -> holders.remove(productId, userId));
+        }
+    }
+
+    /**
+     * Drops a cached cart by cart ID.
+     *
+     * @param cartId The ID of the cart
+     */
+    public void evictCart(Long cartId) {
+        summaries.values().stream()
+                .filter(summary -> summary.cartId().equals(cartId))
+                .findFirst()
+                .ifPresent(summary -> evictUser(summary.userId()));
+    }
+}
@@ -1,5 +1,6 @@
 package Hewwwe.services;
 
+import Hewwwe.dto.CacheStatsDTO;
 import Hewwwe.entity.Category;
 import Hewwwe.entity.Product;
 import org.springframework.stereotype.Service;
@@ -14,4 +15,5 @@ public interface CategoryService {
     Category updateCategory(Long id, Category categoryDetails);
     void deleteCategory(Long id);
     List<Product> getProductsByCategory(Long categoryId);
+    List<CacheStatsDTO> getCacheStats();
 }
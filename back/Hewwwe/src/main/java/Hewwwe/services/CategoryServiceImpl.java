@@ -1,51 +1,117 @@
 package Hewwwe.services;
 
+import Hewwwe.config.CacheConfig;
+import Hewwwe.dto.CacheStatsDTO;
 import Hewwwe.entity.Category;
 import Hewwwe.entity.Product;
+import Hewwwe.exception.ResourceNotFoundException;
 import Hewwwe.repository.CategoryRepository;
+import Hewwwe.repository.ProductRepository;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Category service backed by a local cache.
+ * Reads are served from the {@code categories} and {@code categoryList} caches;
+ * every write evicts them so the next read goes to the database.
+ */
 @Service
 @RequiredArgsConstructor
 public class CategoryServiceImpl implements CategoryService{
     private final CategoryRepository categoryRepository;
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
+    private final TableVersions tableVersions;
+
     @Override
+    @CacheEvict(cacheNames = CacheConfig.CATEGORY_LIST, allEntries = true)
     public Category createCategory(Category category) {
-        return categoryRepository.save(category);
+        Category savedCategory = categoryRepository.save(category);
+        tableVersions.bump(TableVersions.Table.CATEGORY);
+        return savedCategory;
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.CATEGORY_LIST, key = "'all'")
     public List<Category> getAllCategories() {
         return categoryRepository.findAll();
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.CATEGORIES, key = "#id")
     public Category getCategoryById(Long id) {
-        return categoryRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Exchange not found"));
+        return findCategory(id);
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CATEGORIES, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.CATEGORY_LIST, allEntries = true)
+    })
     public Category updateCategory(Long id, Category categoryDetails) {
-        Category category = getCategoryById(id);
+        Category category = findCategory(id);
         category.setName(categoryDetails.getName());
         category.setDescription(categoryDetails.getDescription());
-        return categoryRepository.save(category);
+        Category savedCategory = categoryRepository.save(category);
+        tableVersions.bump(TableVersions.Table.CATEGORY);
+        // The category name is part of the search index of its products
+        productRepository.findByCategory(savedCategory)
+                .forEach(product -> eventPublisher.publishEvent(ProductChangedEvent.saved(product)));
+        return savedCategory;
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CATEGORIES, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.CATEGORY_LIST, allEntries = true)
+    })
     public void deleteCategory(Long id) {
-        Category category = getCategoryById(id);
+        Category category = findCategory(id);
+        // Products of the category are removed with it
+        productRepository.findByCategory(category)
+                .forEach(product -> eventPublisher.publishEvent(ProductChangedEvent.deleted(product.getProductId())));
         categoryRepository.delete(category);
+        tableVersions.bump(TableVersions.Table.CATEGORY);
     }
 
     @Override
     public List<Product> getProductsByCategory(Long categoryId) {
+        // Cached categories are detached, so their lazy product list cannot be used here
         Category category = getCategoryById(categoryId);
-        return category.getProducts();
+        return productRepository.findByCategory(category);
     }
 
+    @Override
+    public List<CacheStatsDTO> getCacheStats() {
+        List<CacheStatsDTO> stats = new ArrayList<>();
+        for (String cacheName : List.of(CacheConfig.CATEGORIES, CacheConfig.CATEGORY_LIST)) {
+            if (cacheManager.getCache(cacheName) instanceof CaffeineCache cache) {
+                CacheStats cacheStats = cache.getNativeCache().stats();
+                stats.add(new CacheStatsDTO(
+                        cacheName,
+                        cache.getNativeCache().estimatedSize(),
+                        cacheStats.hitCount(),
+                        cacheStats.missCount(),
+                        cacheStats.hitRate(),
+                        cacheStats.evictionCount()));
+            }
+        }
+        return stats;
+    }
+
+    private Category findCategory(Long id) {
+        return categoryRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Category not found with id: " + id));
+    }
 }
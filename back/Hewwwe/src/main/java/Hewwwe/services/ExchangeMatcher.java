@@ -0,0 +1,326 @@
+package Hewwwe.services;
+
+import Hewwwe.dto.ProductListingDTO;
+import Hewwwe.dto.SwapSuggestionDTO;
+import Hewwwe.dto.SwapSuggestionDTO.Leg;
+import Hewwwe.entity.Product;
+import Hewwwe.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory matching engine that suggests exchanges between users.
+ * <p>
+ * Available products are indexed by kind: category, size and price band. What a user offers are
+ * the kinds of the available products they sell; what a user wants are the kinds of the products
+ * sitting in their cart. A user {@code B} can supply a user {@code U} if {@code B} offers something
+ * {@code U} wants. Suggestions for {@code U} are direct swaps ({@code U} and a supplier each want what
+ * the other offers) and three-party cycles ({@code U <- B <- C <- U}).
+ * <p>
+ * The index is loaded once at startup and then kept up to date from {@link ProductChangedEvent}s,
+ * so a suggestion only visits the suppliers of the user, never the whole catalog. The number of
+ * suppliers and third parties looked at per request is bounded.
+ */
+@Component
+@RequiredArgsConstructor
+public class ExchangeMatcher {
+
+    // Suppliers looked at per request
+    private static final int MAX_SUPPLIERS = 200;
+
+    // Third parties looked at per supplier and kind when closing a cycle
+    private static final int MAX_CYCLE_FANOUT = 50;
+
+    /**
+     * Kind of product: two products of the same kind are considered interchangeable.
+     */
+    private record Kind(Long categoryId, String size, String priceRange) {
+    }
+
+    private record Entry(Long productId, Long ownerId, Kind kind, Long holderId) {
+    }
+
+    private final ProductRepository productRepository;
+
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+    // kind -> owner -> IDs of the available products of that kind the owner sells
+    private final Map<Kind, Map<Long, Set<Long>>> offers = new HashMap<>();
+
+    // owner -> kind -> number of available products of that kind the owner sells
+    private final Map<Long, Map<Kind, Integer>> offeredKinds = new HashMap<>();
+
+    // user -> kind -> number of products of that kind in the user's cart
+    private final Map<Long, Map<Kind, Integer>> wantedKinds = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Builds the index from the available products once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        load(productRepository.findListings());
+    }
+
+    /**
+     * Replaces the whole index.
+     *
+     * @param listings Every available product
+     */
+    public void load(Collection<ProductListingDTO> listings) {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            offers.clear();
+            offeredKinds.clear();
+            wantedKinds.clear();
+            listings.forEach(listing -> addEntry(toEntry(listing)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Keeps the index in sync with product writes once their transaction has committed.
+     *
+     * @param event Product change published by the service layer
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            removeEntry(event.productId());
+            Product product = event.product();
+            if (product != null && "AVAILABLE".equals(product.getStatus())) {
+                addEntry(toEntry(product));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Takes products out of the carts they were held in, for writes that do not publish
+     * product events (bulk release of expired holds).
+     *
+     * @param productIds IDs of the released products
+     */
+    public void releaseHolds(Collection<Long> productIds) {
+        lock.writeLock().lock();
+        try {
+            for (Long productId : productIds) {
+                Entry entry = entries.get(productId);
+                if (entry != null && entry.holderId() != null) {
+                    removeEntry(productId);
+                    addEntry(new Entry(productId, entry.ownerId(), entry.kind(), null));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Suggests exchanges for a user: direct swaps first, then three-party cycles.
+     *
+     * @param userId The ID of the user
+     * @param limit Maximum number of suggestions
+     * @return Suggested exchanges, each starting with the product the user gives
+     */
+    public List<SwapSuggestionDTO> suggest(Long userId, int limit) {
+        lock.readLock().lock();
+        try {
+            Map<Kind, Integer> wanted = wantedKinds.getOrDefault(userId, Map.of());
+            Map<Kind, Integer> offered = offeredKinds.getOrDefault(userId, Map.of());
+            if (wanted.isEmpty() || offered.isEmpty() || limit <= 0) {
+                return List.of();
+            }
+
+            List<SwapSuggestionDTO> swaps = new ArrayList<>();
+            List<SwapSuggestionDTO> cycles = new ArrayList<>();
+            Set<Long> suppliers = new HashSet<>();
+            suppliersLoop:
+            for (Kind kind : wanted.keySet()) {
+                for (Long supplier : offers.getOrDefault(kind, Map.of()).keySet()) {
+                    if (supplier.equals(userId) || !suppliers.add(supplier)) {
+                        continue;
+                    }
+                    if (suppliers.size() > MAX_SUPPLIERS || swaps.size() >= limit) {
+                        break suppliersLoop;
+                    }
+                    Long received = pick(kind, supplier, userId);
+                    if (received == null) {
+                        continue;
+                    }
+
+                    Kind wantedBack = firstCommon(wantedKinds.get(supplier), offered);
+                    Long given = wantedBack != null ? pick(wantedBack, userId, supplier) : null;
+                    if (given != null) {
+                        swaps.add(new SwapSuggestionDTO(2, List.of(
+                                new Leg(userId, supplier, given),
+                                new Leg(supplier, userId, received))));
+                    } else if (cycles.size() < limit) {
+                        SwapSuggestionDTO cycle = closeCycle(userId, supplier, received, offered);
+                        if (cycle != null) {
+                            cycles.add(cycle);
+                        }
+                    }
+                }
+            }
+
+            List<SwapSuggestionDTO> suggestions = new ArrayList<>(swaps);
+            suggestions.addAll(cycles);
+            return suggestions.size() > limit ? suggestions.subList(0, limit) : suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Number of available products indexed
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Looks for a third user C that supplies the supplier B and wants something the user U offers
+    private SwapSuggestionDTO closeCycle(Long userId, Long supplier, Long received, Map<Kind, Integer> offered) {
+        for (Kind kind : wantedKinds.getOrDefault(supplier, Map.of()).keySet()) {
+            int fanout = 0;
+            for (Long third : offers.getOrDefault(kind, Map.of()).keySet()) {
+                if (third.equals(userId) || third.equals(supplier)) {
+                    continue;
+                }
+                if (++fanout > MAX_CYCLE_FANOUT) {
+                    break;
+                }
+                Kind wantedByThird = firstCommon(wantedKinds.get(third), offered);
+                if (wantedByThird == null) {
+                    continue;
+                }
+                Long toSupplier = pick(kind, third, supplier);
+                Long given = pick(wantedByThird, userId, third);
+                if (toSupplier != null && given != null) {
+                    return new SwapSuggestionDTO(3, List.of(
+                            new Leg(userId, third, given),
+                            new Leg(third, supplier, toSupplier),
+                            new Leg(supplier, userId, received)));
+                }
+            }
+        }
+        return null;
+    }
+
+    // A product of the kind the giver sells and the receiver could get: the one in the receiver's cart
+    // if there is one, otherwise any not held in someone else's cart
+    private Long pick(Kind kind, Long giverId, Long receiverId) {
+        Set<Long> products = offers.getOrDefault(kind, Map.of()).get(giverId);
+        if (products == null) {
+            return null;
+        }
+        Long free = null;
+        for (Long productId : products) {
+            Long holderId = entries.get(productId).holderId();
+            if (receiverId.equals(holderId)) {
+                return productId;
+            }
+            if (holderId == null && free == null) {
+                free = productId;
+            }
+        }
+        return free;
+    }
+
+    private static Kind firstCommon(Map<Kind, Integer> a, Map<Kind, Integer> b) {
+        if (a == null || b == null) {
+            return null;
+        }
+        Map<Kind, Integer> smaller = a.size() <= b.size() ? a : b;
+        Map<Kind, Integer> larger = smaller == a ? b : a;
+        for (Kind kind : smaller.keySet()) {
+            if (larger.containsKey(kind)) {
+                return kind;
+            }
+        }
+        return null;
+    }
+
+    private static Entry toEntry(ProductListingDTO listing) {
+        return new Entry(listing.productId(), listing.ownerId(),
+                new Kind(listing.categoryId(), listing.size(), ProductFacetIndex.priceRange(listing.price())),
+                listing.holderId());
+    }
+
+    private static Entry toEntry(Product product) {
+        return toEntry(new ProductListingDTO(
+                product.getProductId(),
+                product.getUser() != null ? product.getUser().getUserId() : null,
+                product.getCategory() != null ? product.getCategory().getCategoryId() : null,
+                product.getSize(),
+                product.getPrice(),
+                product.getCart() != null && product.getCart().getUser() != null
+                        ? product.getCart().getUser().getUserId() : null));
+    }
+
+    private void addEntry(Entry entry) {
+        if (entry.ownerId() == null) {
+            return;
+        }
+        entries.put(entry.productId(), entry);
+        offers.computeIfAbsent(entry.kind(), k -> new HashMap<>())
+                .computeIfAbsent(entry.ownerId(), o -> new LinkedHashSet<>())
+                .add(entry.productId());
+        adjust(offeredKinds, entry.ownerId(), entry.kind(), 1);
+        if (entry.holderId() != null) {
+            adjust(wantedKinds, entry.holderId(), entry.kind(), 1);
+        }
+    }
+
+    private void removeEntry(Long productId) {
+        Entry entry = entries.remove(productId);
+        if (entry == null) {
+            return;
+        }
+        Map<Long, Set<Long>> owners = offers.get(entry.kind());
+        Set<Long> products = owners.get(entry.ownerId());
+        products.remove(productId);
+        if (products.isEmpty()) {
+            owners.remove(entry.ownerId());
+            if (owners.isEmpty()) {
+                offers.remove(entry.kind());
+            }
+        }
+        adjust(offeredKinds, entry.ownerId(), entry.kind(), -1);
+        if (entry.holderId() != null) {
+            adjust(wantedKinds, entry.holderId(), entry.kind(), -1);
+        }
+    }
+
+    private static void adjust(Map<Long, Map<Kind, Integer>> counts, Long userId, Kind kind, int delta) {
+        Map<Kind, Integer> kinds = counts.computeIfAbsent(userId, u -> new HashMap<>());
+        kinds.merge(kind, delta, (current, d) -> current + d == 0 ? null : current + d);
+        if (kinds.isEmpty()) {
+            counts.remove(userId);
+        }
+    }
+}
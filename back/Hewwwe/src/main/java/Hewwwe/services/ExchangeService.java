@@ -1,9 +1,14 @@
 package Hewwwe.services;
 
+import Hewwwe.dto.SwapSuggestionDTO;
 import Hewwwe.entity.Exchange;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 public interface ExchangeService {
@@ -12,10 +17,16 @@ public interface ExchangeService {
     Exchange updateExchange(Exchange exchange);
     void deleteExchange(Long id);
     List<Exchange> getAllExchanges();
+    Stream<Exchange> streamAllExchanges();
     List<Exchange> getExchangesByRequesterId(Long requesterId);
     List<Exchange> getExchangesByOwnerId(Long ownerId);
+    Page<Exchange> getUserExchanges(Long userId, String status, Pageable pageable);
     Exchange updateExchangeStatus(Long id, String status);
+    int expireStale();
+    List<SwapSuggestionDTO> suggestSwaps(Long userId, int limit);
     Exchange proposeExchange(Long ownerId, Long requesterId, Long ownerProductId, Long requesterProductId);
+    Exchange proposeExchange(Long ownerId, Long requesterId,
+                             Collection<Long> ownerProductIds, Collection<Long> requesterProductIds);
     
     /**
      * Acepta un intercambio y marca todos los productos involucrados como vendidos (SOLD)
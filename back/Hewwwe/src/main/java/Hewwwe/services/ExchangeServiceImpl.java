@@ -1,19 +1,43 @@
 package Hewwwe.services;
 
+import Hewwwe.dto.SwapSuggestionDTO;
+import Hewwwe.entity.Cart;
 import Hewwwe.entity.Exchange;
 import Hewwwe.entity.Product;
-import Hewwwe.entity.User;
+import Hewwwe.entity.enums.ExchangeStatus;
+import Hewwwe.exception.ConflictException;
 import Hewwwe.exception.ResourceNotFoundException;
+import Hewwwe.repository.CartRepository;
 import Hewwwe.repository.ExchangeRepository;
 import Hewwwe.repository.ProductRepository;
 import Hewwwe.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Implementation of the Exchange Service that handles all exchange-related operations.
@@ -21,12 +45,23 @@ import java.util.List;
  */
 @Service
 @RequiredArgsConstructor
+@Slf4j
 @Transactional
 public class ExchangeServiceImpl implements ExchangeService {
 
     private final ExchangeRepository exchangeRepository;
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
+    private final CartRepository cartRepository;
+    private final ExchangeMatcher exchangeMatcher;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${hewwwe.exchanges.pending-days:14}")
+    private long pendingDays;
+
+    @Value("${hewwwe.exchanges.expiry-batch-size:500}")
+    private int batchSize;
 
     /**
      * Creates a new exchange in the system.
@@ -55,15 +90,14 @@ public class ExchangeServiceImpl implements ExchangeService {
     /**
      * Updates an existing exchange.
      *
-     * @param exchange The exchange entity with updated information
+     * @param exchange The exchange entity with updated information (its status is ignored)
      * @return The updated exchange
      * @throws ResourceNotFoundException if the exchange is not found
      */
     @Override
     public Exchange updateExchange(Exchange exchange) {
-        if (!exchangeRepository.existsById(exchange.getExchangeId())) {
-            throw new ResourceNotFoundException("Exchange not found with id: " + exchange.getExchangeId());
-        }
+        // The status only changes through the transitions of updateExchangeStatus
+        exchange.setStatus(getExchangeById(exchange.getExchangeId()).getStatus());
         return exchangeRepository.save(exchange);
     }
 
@@ -91,6 +125,17 @@ public class ExchangeServiceImpl implements ExchangeService {
         return exchangeRepository.findAll();
     }
 
+    /**
+     * Streams all exchanges through a database cursor.
+     * Must be consumed and closed inside a transaction.
+     *
+     * @return Stream of all exchanges
+     */
+    @Override
+    public Stream<Exchange> streamAllExchanges() {
+        return exchangeRepository.streamAll();
+    }
+
     /**
      * Retrieves exchanges by the requester's user ID.
      *
@@ -114,103 +159,254 @@ public class ExchangeServiceImpl implements ExchangeService {
     }
 
     /**
-     * Updates the status of an exchange.
+     * Retrieves one page of the exchanges a user takes part in, as requester or as owner, newest first.
+     * <p>
+     * The page of IDs is selected first (plus a count when paged), then the exchanges of the page are
+     * loaded with their users and products in a single statement, so the number of queries does not
+     * depend on the page size nor on the number of products.
+     *
+     * @param userId The ID of the user
+     * @param status Only exchanges with this status, or null for all
+     * @param pageable Page to return, or unpaged for all of them
+     * @return The page of exchanges
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Exchange> getUserExchanges(Long userId, String status, Pageable pageable) {
+        Page<Long> ids = exchangeRepository.findIdsByUser(userId,
+                status != null ? ExchangeStatus.parse(status) : null, pageable);
+        if (ids.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        Map<Long, Exchange> exchanges = exchangeRepository.findAllWithDetailsById(ids.getContent()).stream()
+                .collect(Collectors.toMap(Exchange::getExchangeId, Function.identity()));
+        return ids.map(exchanges::get);
+    }
+
+    /**
+     * Suggests exchanges for a user from the in-memory {@link ExchangeMatcher}.
+     *
+     * @param userId The ID of the user
+     * @param limit Maximum number of suggestions
+     * @return Direct swaps first, then three-party cycles
+     * @throws ResourceNotFoundException if the user is not found
+     */
+    @Override
+    public List<SwapSuggestionDTO> suggestSwaps(Long userId, int limit) {
+        if (!userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("User not found with id: " + userId);
+        }
+        return exchangeMatcher.suggest(userId, limit);
+    }
+
+    /**
+     * Moves an exchange to a new status, following {@link ExchangeStatus}.
+     * Accepting goes through {@link #acceptExchangeAndMarkProductsAsSold(Long)}.
+     * Moving an exchange to the status it already has does nothing.
      *
      * @param id The ID of the exchange
      * @param status The new status to be set
      * @return The updated exchange
      * @throws ResourceNotFoundException if the exchange is not found
+     * @throws IllegalArgumentException if the status does not exist
+     * @throws ConflictException if the exchange cannot move from its current status to the new one
      */
     @Override
     public Exchange updateExchangeStatus(Long id, String status) {
-        Exchange exchange = getExchangeById(id);
-        exchange.setStatus(status);
-        return exchangeRepository.save(exchange);
+        ExchangeStatus target = ExchangeStatus.parse(status);
+        if (target == ExchangeStatus.ACCEPTED) {
+            return acceptExchangeAndMarkProductsAsSold(id);
+        }
+        transition(id, target);
+        return getExchangeById(id);
     }
 
     /**
      * Accepts an exchange and marks all associated products as sold.
+     * The products only go from AVAILABLE to SOLD; if any of them was sold in the meantime
+     * nothing is written. Sold products leave the carts holding them, whose totals are recalculated.
+     * The other pending exchanges involving any of the products can no longer
+     * happen, so they are rejected in the same transaction. Accepting an accepted exchange does nothing.
      *
      * @param id The ID of the exchange to accept
      * @return The updated exchange with accepted status
      * @throws ResourceNotFoundException if the exchange is not found
+     * @throws ConflictException if the exchange is no longer pending or some product is no longer available
      */
     @Override
     @Transactional
     public Exchange acceptExchangeAndMarkProductsAsSold(Long id) {
-        // Obtener el intercambio
+        if (!transition(id, ExchangeStatus.ACCEPTED)) {
+            return getExchangeById(id);
+        }
         Exchange exchange = getExchangeById(id);
+        List<Product> products = new ArrayList<>(exchange.getProducts());
         
-        // Cambiar el estado del intercambio a ACCEPTED
-        exchange.setStatus("ACCEPTED");
+        // Marcar todos los productos del intercambio como SOLD, solo si siguen disponibles
+        List<Long> productIds = products.stream().map(Product::getProductId).toList();
+        List<Long> cartIds = products.stream().map(Product::getCart).filter(Objects::nonNull)
+                .map(Cart::getCartId).distinct().toList();
+        if (productRepository.markSold(productIds) != productIds.size()) {
+            throw new ConflictException("Some products of the exchange are no longer available");
+        }
+        // The products left the carts holding them, as on checkout
+        if (!cartIds.isEmpty()) {
+            cartRepository.recalculateTotals(cartIds);
+        }
+        if (!productIds.isEmpty()) {
+            int rejected = exchangeRepository.rejectCompeting(id, productIds);
+            if (rejected > 0) {
+                log.info("Accepting exchange {} rejected {} competing exchanges", id, rejected);
+            }
+        }
         
-        // Marcar todos los productos del intercambio como SOLD
-        for (Product product : exchange.getProducts()) {
+        // The update bypassed the persistence context: reflect it on the (now detached) products
+        for (Product product : products) {
             product.setStatus("SOLD");
-            productRepository.save(product);
+            product.setCart(null);
+            product.setReservedUntil(null);
+            eventPublisher.publishEvent(ProductChangedEvent.saved(product));
         }
-        
-        // Guardar y devolver el intercambio actualizado
-        return exchangeRepository.save(exchange);
+        return exchange;
+    }
+
+    /**
+     * Expires the exchanges that have been pending for too long, in batches of one transaction each.
+     * Runs in the background.
+     *
+     * @return Number of exchanges expired
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${hewwwe.exchanges.expiry-interval-ms:3600000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int expireStale() {
+        Date now = new Date();
+        Date cutoff = new Date(now.getTime() - TimeUnit.DAYS.toMillis(pendingDays));
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int expired = 0;
+        int count;
+        do {
+            count = transaction.execute(status -> {
+                List<Long> ids = exchangeRepository.findIdsByStatusBefore(ExchangeStatus.PENDING, cutoff,
+                        PageRequest.of(0, batchSize));
+                return ids.isEmpty() ? 0 : exchangeRepository.transition(ids, ExchangeStatus.EXPIRED,
+                        ExchangeStatus.EXPIRED.sources(), null);
+            });
+            expired += count;
+        } while (count == batchSize);
+        if (expired > 0) {
+            log.info("Expired {} exchanges pending since before {}", expired, cutoff);
+        }
+        return expired;
+    }
+
+    /**
+     * Moves an exchange to a status with a conditional update.
+     * The completion date is set when the exchange becomes COMPLETED and left as it was otherwise.
+     *
+     * @param id The ID of the exchange
+     * @param target The new status
+     * @return true if the exchange moved, false if it already had the status
+     * @throws ResourceNotFoundException if the exchange is not found
+     * @throws ConflictException if the exchange cannot move from its current status to the target
+     */
+    private boolean transition(Long id, ExchangeStatus target) {
+        Set<ExchangeStatus> sources = target.sources();
+        Date completedAt = target == ExchangeStatus.COMPLETED ? new Date() : null;
+        if (!sources.isEmpty() && exchangeRepository.transition(List.of(id), target, sources, completedAt) == 1) {
+            return true;
+        }
+        ExchangeStatus current = getExchangeById(id).getStatus();
+        if (current == target) {
+            return false;
+        }
+        throw new ConflictException("Exchange " + id + " is " + current + " and cannot become " + target);
     }
 
     /**
-     * Proposes a new exchange between two users with specified products.
+     * Proposes a new exchange between two users with one product on each side.
      *
      * @param ownerId The ID of the owner user
      * @param requesterId The ID of the requester user
      * @param ownerProductId The ID of the product from the owner
      * @param requesterProductId The ID of the product from the requester
      * @return The created exchange proposal
-     * @throws ResourceNotFoundException if any of the users or products are not found
-     * @throws IllegalArgumentException if the products do not belong to the specified users
+     * @see #proposeExchange(Long, Long, Collection, Collection)
      */
     @Override
     public Exchange proposeExchange(Long ownerId, Long requesterId, Long ownerProductId, Long requesterProductId) {
-        // Obtener los usuarios
-        User owner = userRepository.findById(ownerId)
-                .orElseThrow(() -> new ResourceNotFoundException("Owner not found with id: " + ownerId));
-        
-        User requester = userRepository.findById(requesterId)
-                .orElseThrow(() -> new ResourceNotFoundException("Requester not found with id: " + requesterId));
-        
-        // Obtener los productos
-        Product ownerProduct = productRepository.findById(ownerProductId)
-                .orElseThrow(() -> new ResourceNotFoundException("Owner product not found with id: " + ownerProductId));
-        
-        Product requesterProduct = productRepository.findById(requesterProductId)
-                .orElseThrow(() -> new ResourceNotFoundException("Requester product not found with id: " + requesterProductId));
-        
-        // Validar que los productos pertenezcan a los usuarios correctos
-        if (!ownerProduct.getUser().getUserId().equals(ownerId)) {
-            throw new IllegalArgumentException("Owner product does not belong to the specified owner");
+        return proposeExchange(ownerId, requesterId, List.of(ownerProductId), List.of(requesterProductId));
+    }
+
+    /**
+     * Proposes a new exchange between two users with any number of products on each side.
+     * <p>
+     * Every product is loaded and checked with a single query, and the exchange is persisted together
+     * with its product links, which Hibernate writes as one JDBC batch.
+     *
+     * @param ownerId The ID of the owner user
+     * @param requesterId The ID of the requester user
+     * @param ownerProductIds The IDs of the products from the owner
+     * @param requesterProductIds The IDs of the products from the requester
+     * @return The created exchange proposal
+     * @throws ResourceNotFoundException if any of the products is not found
+     * @throws IllegalArgumentException if a side is empty, a product is on both sides
+     *         or does not belong to the specified user
+     * @throws ConflictException if any of the products is not available
+     */
+    @Override
+    public Exchange proposeExchange(Long ownerId, Long requesterId,
+                                    Collection<Long> ownerProductIds, Collection<Long> requesterProductIds) {
+        if (ownerId.equals(requesterId)) {
+            throw new IllegalArgumentException("Owner and requester must be different users");
         }
-        
-        if (!requesterProduct.getUser().getUserId().equals(requesterId)) {
-            throw new IllegalArgumentException("Requester product does not belong to the specified requester");
+        Set<Long> ownerIds = new LinkedHashSet<>(ownerProductIds);
+        Set<Long> requesterIds = new LinkedHashSet<>(requesterProductIds);
+        if (ownerIds.isEmpty() || requesterIds.isEmpty()) {
+            throw new IllegalArgumentException("Both sides of an exchange need at least one product");
         }
-        
-        // Crear el intercambio
+        if (!Collections.disjoint(ownerIds, requesterIds)) {
+            throw new IllegalArgumentException("A product cannot be on both sides of an exchange");
+        }
+
+        Set<Long> ids = new LinkedHashSet<>(ownerIds);
+        ids.addAll(requesterIds);
+        Map<Long, Product> products = productRepository.findAllWithCartById(ids).stream()
+                .collect(Collectors.toMap(Product::getProductId, Function.identity()));
+        List<Long> missing = ids.stream().filter(id -> !products.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            throw new ResourceNotFoundException("Products not found with ids: " + missing);
+        }
+        List<Product> ownerProducts = side(products, ownerIds, ownerId, "owner");
+        List<Product> requesterProducts = side(products, requesterIds, requesterId, "requester");
+
         Exchange exchange = new Exchange();
         exchange.setExchangeDate(new Date());
-        exchange.setStatus("PENDING");
-        exchange.setOwner(owner);
-        exchange.setRequester(requester);
-        
-        // Guardar el intercambio primero para que tenga un ID
-        exchange = exchangeRepository.save(exchange);
-        
-        // Añadir los productos al intercambio
-        List<Product> products = new ArrayList<>();
-        products.add(ownerProduct);
-        products.add(requesterProduct);
-        exchange.setProducts(products);
-        
-        // Actualizar también la relación bidireccional
-        ownerProduct.getExchanges().add(exchange);
-        requesterProduct.getExchanges().add(exchange);
-        
-        // Guardar el intercambio actualizado
-        return exchangeRepository.save(exchange);
+        exchange.setStatus(ExchangeStatus.PENDING);
+        exchange.setOwner(ownerProducts.get(0).getUser());
+        exchange.setRequester(requesterProducts.get(0).getUser());
+        List<Product> exchanged = new ArrayList<>(ownerProducts);
+        exchanged.addAll(requesterProducts);
+        exchange.setProducts(exchanged);
+
+        Exchange savedExchange = exchangeRepository.save(exchange);
+        exchanged.forEach(product -> eventPublisher.publishEvent(ProductChangedEvent.saved(product)));
+        return savedExchange;
+    }
+
+    // Products of one side of a proposal, checked to belong to the user and to be available
+    private static List<Product> side(Map<Long, Product> products, Set<Long> ids, Long userId, String role) {
+        List<Product> side = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Product product = products.get(id);
+            if (!product.getUser().getUserId().equals(userId)) {
+                throw new IllegalArgumentException("Product " + id + " does not belong to the specified " + role);
+            }
+            if (!"AVAILABLE".equals(product.getStatus())) {
+                throw new ConflictException("Product " + id + " is not available");
+            }
+            side.add(product);
+        }
+        return side;
     }
 }
@@ -0,0 +1,10 @@
+package Hewwwe.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Date;
+
+public interface InvoiceExportService {
+    long count(Date from, Date to);
+    void export(Date from, Date to, OutputStream outputStream) throws IOException;
+}
@@ -0,0 +1,185 @@
+package Hewwwe.services;
+
+import Hewwwe.entity.Invoice;
+import Hewwwe.repository.InvoiceRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Exports every invoice of a date range as a ZIP with one PDF per invoice and a CSV ledger.
+ * <p>
+ * Invoices are read in chunks of IDs (keyset pagination), each chunk in its own read-only transaction,
+ * and the documents of a chunk are rendered in parallel before being written to the ZIP in ID order;
+ * documents already in the PDF cache are reused. The ledger is written to a temporary file as the chunks go
+ * by and added as the last entry, so at most one chunk of invoices and documents is held in memory.
+ * The ZIP is written to any output stream: the response or a file.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InvoiceExportServiceImpl implements InvoiceExportService {
+
+    // First characters that make a spreadsheet evaluate a cell
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+    private static final String LEDGER_HEADER = "invoice_id,invoice_date,user_id,username,email,items,total_eur";
+
+    private final InvoiceRepository invoiceRepository;
+    private final InvoicePdfRenderer renderer;
+    private final InvoicePdfService invoicePdfService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${hewwwe.invoices.export-chunk-size:200}")
+    private int chunkSize;
+
+    /**
+     * @param from Start of the range, inclusive
+     * @param to End of the range, exclusive
+     * @return Number of invoices in the range
+     * @throws IllegalArgumentException if the range is empty or reversed
+     */
+    @Override
+    public long count(Date from, Date to) {
+        if (!from.before(to)) {
+            throw new IllegalArgumentException("The start of the range must be before its end");
+        }
+        return invoiceRepository.countByDateRange(from, to);
+    }
+
+    /**
+     * Writes the export of a date range. The output stream is left open.
+     *
+     * @param from Start of the range, inclusive
+     * @param to End of the range, exclusive
+     * @param outputStream Where the ZIP is written
+     * @throws IOException if the export cannot be written
+     */
+    @Override
+    public void export(Date from, Date to, OutputStream outputStream) throws IOException {
+        long total = count(from, to);
+        long startedAt = System.currentTimeMillis();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+
+        Path ledger = Files.createTempFile("invoice-ledger-", ".csv");
+        try {
+            ZipOutputStream zip = new ZipOutputStream(outputStream);
+            try (BufferedWriter csv = Files.newBufferedWriter(ledger, StandardCharsets.UTF_8)) {
+                csv.write(LEDGER_HEADER + "\r\n");
+
+                long after = 0;
+                long exported = 0;
+                while (true) {
+                    long cursor = after;
+                    List<Invoice> chunk = transaction.execute(status -> {
+                        List<Long> ids = invoiceRepository.findIdsByDateRange(from, to, cursor,
+                                PageRequest.of(0, chunkSize));
+                        return ids.isEmpty() ? List.<Invoice>of() : invoiceRepository.findWithDetailsByInvoiceIdIn(ids)
+                                .stream().sorted(Comparator.comparing(Invoice::getInvoiceId)).toList();
+                    });
+                    if (chunk.isEmpty()) {
+                        break;
+                    }
+
+                    List<byte[]> documents = render(chunk);
+                    for (int i = 0; i < chunk.size(); i++) {
+                        Invoice invoice = chunk.get(i);
+                        zip.putNextEntry(new ZipEntry("factura-" + invoice.getInvoiceId() + ".pdf"));
+                        zip.write(documents.get(i));
+                        zip.closeEntry();
+                        writeLedgerRow(csv, invoice);
+                    }
+                    zip.flush();
+
+                    after = chunk.get(chunk.size() - 1).getInvoiceId();
+                    exported += chunk.size();
+                    Runtime runtime = Runtime.getRuntime();
+                    log.info("Exported {}/{} invoices, heap {}/{} MB", exported, total,
+                            (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024),
+                            runtime.maxMemory() / (1024 * 1024));
+                }
+            }
+
+            zip.putNextEntry(new ZipEntry("ledger.csv"));
+            Files.copy(ledger, zip);
+            zip.closeEntry();
+            zip.finish();
+            zip.flush();
+            log.info("Export of {} invoices finished in {} ms", total, System.currentTimeMillis() - startedAt);
+        } finally {
+            Files.deleteIfExists(ledger);
+        }
+    }
+
+    // Documents of a chunk, in the same order, rendered on all cores
+    private List<byte[]> render(List<Invoice> chunk) throws IOException {
+        try {
+            return chunk.parallelStream().map(this::document).toList();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private byte[] document(Invoice invoice) {
+        try {
+            Path cached = invoicePdfService.getCached(invoice.getInvoiceId(), invoice.getVersion());
+            if (cached != null) {
+                return Files.readAllBytes(cached);
+            }
+            ByteArrayOutputStream document = new ByteArrayOutputStream();
+            renderer.write(invoice, document);
+            return document.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeLedgerRow(Writer csv, Invoice invoice) throws IOException {
+        csv.write(String.join(",",
+                String.valueOf(invoice.getInvoiceId()),
+                invoice.getInvoiceDate() != null
+                        ? new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(invoice.getInvoiceDate()) : "",
+                invoice.getUser() != null ? String.valueOf(invoice.getUser().getUserId()) : "",
+                escape(invoice.getUser() != null ? invoice.getUser().getUsername() : null),
+                escape(invoice.getUser() != null ? invoice.getUser().getEmail() : null),
+                String.valueOf(invoice.getLines().size()),
+                invoice.getTotalAmount() != null ? invoice.getTotalAmount().toBigDecimal().toPlainString() : ""));
+        csv.write("\r\n");
+    }
+
+    // Quotes a CSV field if it contains a separator, a quote or a line break. A user-controlled value
+    // a spreadsheet would read as a formula is prefixed with a quote first, so it is shown as text.
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (!value.isEmpty() && FORMULA_PREFIXES.indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
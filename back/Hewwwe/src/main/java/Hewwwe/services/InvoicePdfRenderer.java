@@ -0,0 +1,111 @@
+package Hewwwe.services;
+
+import Hewwwe.entity.Invoice;
+import Hewwwe.entity.InvoiceLine;
+import Hewwwe.entity.Money;
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Element;
+import com.itextpdf.text.Font;
+import com.itextpdf.text.FontFactory;
+import com.itextpdf.text.PageSize;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.Phrase;
+import com.itextpdf.text.pdf.PdfPCell;
+import com.itextpdf.text.pdf.PdfPTable;
+import com.itextpdf.text.pdf.PdfWriter;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+
+/**
+ * Draws the PDF document of an invoice with iText.
+ * <p>
+ * Pages are written to the output stream as they are completed, and the product table is added
+ * in chunks, so the whole document is never held in memory.
+ */
+@Component
+public class InvoicePdfRenderer {
+
+    // Table rows added to the document at a time
+    private static final int ROWS_PER_CHUNK = 50;
+
+    private static final Font TITLE = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18);
+    private static final Font BOLD = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10);
+    private static final Font NORMAL = FontFactory.getFont(FontFactory.HELVETICA, 10);
+
+    /**
+     * Writes the document of an invoice. The output stream is left open.
+     *
+     * @param invoice Invoice with its lines loaded
+     * @param outputStream Where the PDF is written
+     * @throws IOException if the document cannot be written
+     */
+    public void write(Invoice invoice, OutputStream outputStream) throws IOException {
+        Document document = new Document(PageSize.A4);
+        try {
+            PdfWriter writer = PdfWriter.getInstance(document, outputStream);
+            writer.setCloseStream(false);
+            document.open();
+
+            document.add(new Paragraph("Factura #" + invoice.getInvoiceId(), TITLE));
+            if (invoice.getInvoiceDate() != null) {
+                document.add(new Paragraph("Fecha: "
+                        + new SimpleDateFormat("dd/MM/yyyy").format(invoice.getInvoiceDate()), NORMAL));
+            }
+            // Only the snapshot taken with the invoice: the document is cached by invoice version
+            if (invoice.getCustomerName() != null) {
+                document.add(new Paragraph("Cliente: " + invoice.getCustomerName()
+                        + " <" + invoice.getCustomerEmail() + ">", NORMAL));
+            }
+            if (invoice.getShippingAddress() != null) {
+                document.add(new Paragraph("Dirección: " + invoice.getShippingAddress(), NORMAL));
+            }
+            document.add(new Paragraph(" "));
+
+            PdfPTable table = new PdfPTable(new float[]{6, 2, 2});
+            table.setWidthPercentage(100);
+            table.setHeaderRows(1);
+            table.setComplete(false);
+            table.addCell(cell("Producto", BOLD, Element.ALIGN_LEFT));
+            table.addCell(cell("Talla", BOLD, Element.ALIGN_LEFT));
+            table.addCell(cell("Precio", BOLD, Element.ALIGN_RIGHT));
+
+            int rows = 0;
+            for (InvoiceLine line : invoice.getLines()) {
+                table.addCell(cell(line.getProductName(), NORMAL, Element.ALIGN_LEFT));
+                table.addCell(cell(line.getSize(), NORMAL, Element.ALIGN_LEFT));
+                table.addCell(cell(format(line.getPrice()), NORMAL, Element.ALIGN_RIGHT));
+                if (++rows % ROWS_PER_CHUNK == 0) {
+                    // Lays out and releases the rows added so far
+                    document.add(table);
+                }
+            }
+            table.setComplete(true);
+            document.add(table);
+
+            Paragraph total = new Paragraph("Total: " + format(invoice.getTotalAmount()), TITLE);
+            total.setAlignment(Element.ALIGN_RIGHT);
+            document.add(total);
+        } catch (DocumentException e) {
+            throw new IOException("Could not render invoice " + invoice.getInvoiceId(), e);
+        } finally {
+            if (document.isOpen()) {
+                document.close();
+            }
+        }
+    }
+
+    private static PdfPCell cell(String text, Font font, int alignment) {
+        PdfPCell cell = new PdfPCell(new Phrase(text != null ? text : "", font));
+        cell.setHorizontalAlignment(alignment);
+        cell.setPadding(4);
+        return cell;
+    }
+
+    private static String format(Money money) {
+        return money != null ? money.toBigDecimal().toPlainString() + " €" : "";
+    }
+}
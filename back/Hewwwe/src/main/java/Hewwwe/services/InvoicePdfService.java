@@ -0,0 +1,12 @@
+package Hewwwe.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+public interface InvoicePdfService {
+    long getVersion(Long invoiceId);
+    Path getCached(Long invoiceId, long version);
+    void render(Long invoiceId, long version, OutputStream outputStream) throws IOException;
+    void evict(Long invoiceId);
+}
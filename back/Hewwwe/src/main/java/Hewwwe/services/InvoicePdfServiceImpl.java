@@ -0,0 +1,166 @@
+package Hewwwe.services;
+
+import Hewwwe.entity.Invoice;
+import Hewwwe.exception.ResourceNotFoundException;
+import Hewwwe.repository.InvoiceRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Renders invoice PDFs and keeps them in an on-disk cache.
+ * <p>
+ * A document is identified by the invoice ID and version: the cache file is named after both,
+ * so an updated invoice addresses a new file and a cached one never has to be invalidated.
+ * The first download renders the document straight to the response while copying it to a temporary
+ * file, which is moved into the cache once complete; later downloads are served from the file.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InvoicePdfServiceImpl implements InvoicePdfService {
+
+    private final InvoiceRepository invoiceRepository;
+    private final InvoicePdfRenderer renderer;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${hewwwe.invoices.pdf-cache-dir:${java.io.tmpdir}/hewwwe/invoices}")
+    private Path cacheDir;
+
+    /**
+     * @param invoiceId The ID of the invoice
+     * @return Current version of the invoice
+     * @throws ResourceNotFoundException if the invoice is not found
+     */
+    @Override
+    public long getVersion(Long invoiceId) {
+        return invoiceRepository.findVersionById(invoiceId)
+                .orElseThrow(() -> new ResourceNotFoundException("Invoice not found"));
+    }
+
+    /**
+     * @param invoiceId The ID of the invoice
+     * @param version The version of the invoice
+     * @return The cached document of that version, or null if it has not been rendered yet
+     */
+    @Override
+    public Path getCached(Long invoiceId, long version) {
+        Path path = path(invoiceId, version);
+        return Files.isRegularFile(path) ? path : null;
+    }
+
+    /**
+     * Renders the document of an invoice to the given stream and caches it.
+     * The invoice is read in a short read-only transaction and rendered once it has committed,
+     * so no database connection is held while the document is downloaded. The document is only
+     * cached if the invoice still has the expected version when it is read.
+     *
+     * @param invoiceId The ID of the invoice
+     * @param version The version the document is cached under
+     * @param outputStream Where the PDF is written, usually the response
+     * @throws IOException if the document cannot be written
+     * @throws ResourceNotFoundException if the invoice is not found
+     */
+    @Override
+    public void render(Long invoiceId, long version, OutputStream outputStream) throws IOException {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        // The entity graph loads everything the renderer reads
+        Invoice invoice = transaction.execute(status -> invoiceRepository.findWithDetailsByInvoiceId(invoiceId)
+                .orElseThrow(() -> new ResourceNotFoundException("Invoice not found")));
+
+        if (invoice.getVersion() != version) {
+            // Changed since the request started: serve it, but not under the old version
+            renderer.write(invoice, outputStream);
+            return;
+        }
+
+        Files.createDirectories(cacheDir);
+        Path temp = Files.createTempFile(cacheDir, invoiceId + "-", ".tmp");
+        try (OutputStream file = new BufferedOutputStream(Files.newOutputStream(temp))) {
+            renderer.write(invoice, new TeeOutputStream(outputStream, file));
+        } catch (RuntimeException | IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, path(invoiceId, version), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        deleteOtherVersions(invoiceId, version);
+        log.debug("Cached invoice {} version {}", invoiceId, version);
+    }
+
+    /**
+     * Deletes every cached document of an invoice.
+     *
+     * @param invoiceId The ID of the invoice
+     */
+    @Override
+    public void evict(Long invoiceId) {
+        deleteOtherVersions(invoiceId, -1);
+    }
+
+    private Path path(Long invoiceId, long version) {
+        return cacheDir.resolve(invoiceId + "-" + version + ".pdf");
+    }
+
+    private void deleteOtherVersions(Long invoiceId, long version) {
+        if (!Files.isDirectory(cacheDir)) {
+            return;
+        }
+        Path keep = path(invoiceId, version);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(cacheDir, invoiceId + "-*.pdf")) {
+            for (Path file : files) {
+                if (!file.equals(keep)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            // Stale documents are never served, they only take up space
+            log.warn("Could not delete old documents of invoice {}: {}", invoiceId, e.getMessage());
+        }
+    }
+
+    // Writes to the response and to the cache file at the same time
+    private static class TeeOutputStream extends FilterOutputStream {
+        private final OutputStream copy;
+
+        TeeOutputStream(OutputStream out, OutputStream copy) {
+            super(out);
+            this.copy = copy;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            copy.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            copy.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+            copy.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
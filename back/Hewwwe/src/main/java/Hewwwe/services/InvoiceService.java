@@ -2,10 +2,12 @@ package Hewwwe.services;
 
 import Hewwwe.entity.Invoice;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface InvoiceService {
     Invoice findById(Long id);
     List<Invoice> findAll();
+    Stream<Invoice> streamAll();
     Invoice save(Invoice invoice);
     Invoice update(Long id, Invoice invoice);
     void delete(Long id);
@@ -1,17 +1,25 @@
 package Hewwwe.services;
 
+import Hewwwe.entity.Address;
 import Hewwwe.entity.Invoice;
+import Hewwwe.entity.User;
 import Hewwwe.exception.ResourceNotFoundException;
+import Hewwwe.repository.AddressRepository;
 import Hewwwe.repository.InvoiceRepository;
+import Hewwwe.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class InvoiceServiceImpl implements InvoiceService {
     private final InvoiceRepository invoiceRepository;
+    private final UserRepository userRepository;
+    private final AddressRepository addressRepository;
+    private final InvoicePdfService invoicePdfService;
 
     @Override
     public Invoice findById(Long id) {
@@ -24,6 +32,11 @@ public class InvoiceServiceImpl implements InvoiceService {
         return invoiceRepository.findAll();
     }
 
+    @Override
+    public Stream<Invoice> streamAll() {
+        return invoiceRepository.streamAll();
+    }
+
     @Override
     public Invoice save(Invoice invoice) {
         return invoiceRepository.save(invoice);
@@ -34,15 +47,34 @@ public class InvoiceServiceImpl implements InvoiceService {
         Invoice existingInvoice = findById(id);
         existingInvoice.setInvoiceDate(invoice.getInvoiceDate());
         existingInvoice.setTotalAmount(invoice.getTotalAmount());
-        existingInvoice.setAddress(invoice.getAddress());
-        existingInvoice.setUser(invoice.getUser());
+        // The request only carries IDs: load the user and address the snapshot is taken from
+        existingInvoice.setAddress(address(invoice.getAddress()));
+        existingInvoice.setUser(user(invoice.getUser()));
+        existingInvoice.snapshotCustomer();
         existingInvoice.setProducts(invoice.getProducts());
         return invoiceRepository.save(existingInvoice);
     }
 
+    private User user(User user) {
+        if (user == null || user.getUserId() == null) {
+            return null;
+        }
+        return userRepository.findById(user.getUserId())
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+    }
+
+    private Address address(Address address) {
+        if (address == null || address.getAddressId() == null) {
+            return null;
+        }
+        return addressRepository.findById(address.getAddressId())
+                .orElseThrow(() -> new ResourceNotFoundException("Address not found"));
+    }
+
     @Override
     public void delete(Long id) {
         invoiceRepository.deleteById(id);
+        invoicePdfService.evict(id);
     }
 
     @Override
@@ -0,0 +1,123 @@
+package Hewwwe.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Writes large listings to the response one row at a time.
+ * <p>
+ * Rows are read from a JPA {@link Stream} inside a read-only transaction, mapped to their DTO
+ * and serialized straight to the response, either as a JSON array or as NDJSON (one object per line)
+ * when the client sends {@code Accept: application/x-ndjson}. The persistence context is cleared
+ * regularly, so memory use does not depend on the size of the table.
+ */
+@Component
+@RequiredArgsConstructor
+public class JsonStreamer {
+
+    public static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    // Rows written between flushes of the output and of the persistence context
+    private static final int BATCH_SIZE = 100;
+
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+
+    /**
+     * Chooses between NDJSON and a JSON array from the Accept header.
+     *
+     * @param accept Value of the Accept header (may be null)
+     * @return {@link #NDJSON} if requested, {@link MediaType#APPLICATION_JSON} otherwise
+     */
+    public MediaType negotiate(String accept) {
+        return accept != null && accept.contains(NDJSON.toString()) ? NDJSON : MediaType.APPLICATION_JSON;
+    }
+
+    /**
+     * Builds a 200 response that streams the rows in the format requested by the Accept header.
+     *
+     * @param accept Value of the Accept header (may be null)
+     * @param rows Opens the stream of rows; called inside the read-only transaction
+     * @param mapper Maps each row to the object that is serialized
+     * @return Streaming response
+     */
+    public <E> ResponseEntity<StreamingResponseBody> stream(String accept, Supplier<Stream<E>> rows,
+                                                            Function<? super E, ?> mapper) {
+        MediaType contentType = negotiate(accept);
+        return ResponseEntity.ok().contentType(contentType).body(body(contentType, rows, mapper));
+    }
+
+    /**
+     * Builds the streaming body for the given content type.
+     *
+     * @param contentType {@link #NDJSON} or {@link MediaType#APPLICATION_JSON}
+     * @param rows Opens the stream of rows; called inside the read-only transaction
+     * @param mapper Maps each row to the object that is serialized
+     * @return Streaming body
+     */
+    public <E> StreamingResponseBody body(MediaType contentType, Supplier<Stream<E>> rows,
+                                          Function<? super E, ?> mapper) {
+        boolean ndjson = NDJSON.equals(contentType);
+        return outputStream -> {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setReadOnly(true);
+            transaction.executeWithoutResult(status -> {
+                try (Stream<E> stream = rows.get()) {
+                    write(stream.iterator(), mapper, outputStream, ndjson);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        };
+    }
+
+    private <E> void write(Iterator<E> rows, Function<? super E, ?> mapper, OutputStream outputStream,
+                           boolean ndjson) throws IOException {
+        // Flushing is done per batch, not after every row
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        if (ndjson) {
+            generator.setRootValueSeparator(null);
+        } else {
+            generator.writeStartArray();
+        }
+
+        int count = 0;
+        while (rows.hasNext()) {
+            writer.writeValue(generator, mapper.apply(rows.next()));
+            if (ndjson) {
+                generator.writeRaw('\n');
+            }
+            if (++count % BATCH_SIZE == 0) {
+                generator.flush();
+                // Managed rows already written are no longer needed
+                entityManager.clear();
+            }
+        }
+
+        if (!ndjson) {
+            generator.writeEndArray();
+        }
+        generator.close();
+    }
+}
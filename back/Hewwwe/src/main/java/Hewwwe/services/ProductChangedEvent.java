@@ -0,0 +1,25 @@
+package Hewwwe.services;
+
+import Hewwwe.entity.Product;
+
+/**
+ * Application event published by the service layer whenever a product is created, updated or deleted.
+ * In-memory read models over the catalog listen to it after the transaction commits.
+ *
+ * @param productId ID of the changed product
+ * @param product Current state of the product, or {@code null} if it was deleted
+ */
+public record ProductChangedEvent(Long productId, Product product) {
+
+    public static ProductChangedEvent saved(Product product) {
+        return new ProductChangedEvent(product.getProductId(), product);
+    }
+
+    public static ProductChangedEvent deleted(Long productId) {
+        return new ProductChangedEvent(productId, null);
+    }
+
+    public boolean isDeleted() {
+        return product == null;
+    }
+}
@@ -0,0 +1,317 @@
+package Hewwwe.services;
+
+import Hewwwe.entity.Money;
+import Hewwwe.entity.Product;
+import Hewwwe.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory facet index over the product catalog used by the browse endpoint.
+ * <p>
+ * Keeps, for every product, the values it has for each facet (status, category, size and price band),
+ * the products per facet value ordered newest first, and the facet counts of every combination of
+ * filters the browse endpoint accepts. Both are updated incrementally from {@link ProductChangedEvent}s,
+ * so a browse reads its page from an ordered set and its counts from a map: it never sorts the matches
+ * or needs a {@code GROUP BY} over the product table.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductFacetIndex {
+
+    /**
+     * Price bands used by the price facet: lower bound (inclusive) and label.
+     * The last band has no upper bound.
+     */
+    private static final Money[] PRICE_BOUNDS = {Money.of(0), Money.of(25), Money.of(50), Money.of(100), Money.of(200)};
+    private static final String[] PRICE_LABELS = {"0-25", "25-50", "50-100", "100-200", "200-max"};
+
+    private final ProductRepository productRepository;
+
+    // Browse order: newest first, ties broken by ID
+    private static final Comparator<Entry> NEWEST_FIRST = Comparator.comparingLong(Entry::publicationTime)
+            .thenComparing(Entry::productId)
+            .reversed();
+
+    // Filters of a browse, in the order they appear in a combination key
+    private static final int FACETS = 4;
+
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+    // Every product, in browse order
+    private final NavigableSet<Entry> all = new TreeSet<>(NEWEST_FIRST);
+
+    // "facet:value" -> products with that value, in browse order
+    private final Map<String, NavigableSet<Entry>> productsByValue = new HashMap<>();
+
+    // Combination of filters (see comboKey) -> number of matching products and their facet counts
+    private final Map<String, Counts> countsByCombo = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Facet values of one product, plus its publication time for ordering.
+     */
+    private record Entry(Long productId, String status, Long categoryId, String size,
+                         String priceRange, long publicationTime) {
+    }
+
+    /**
+     * Filters accepted by {@link #browse(Filter, int, int)}. Null values are not filtered on.
+     */
+    public record Filter(String status, Long categoryId, String size, String priceRange) {
+    }
+
+    /**
+     * Result of a browse: the IDs of the requested page, the total number of matches
+     * and the facet counts of the matching products.
+     */
+    public record Result(List<Long> productIds, long total, Map<Long, Integer> categoryCounts,
+                         Map<String, Integer> sizeCounts, Map<String, Integer> priceCounts) {
+    }
+
+    /**
+     * Size and facet counts of a set of products.
+     */
+    private static final class Counts {
+        private static final Counts EMPTY = new Counts();
+
+        private int total;
+        private final Map<Long, Integer> categories = new TreeMap<>();
+        private final Map<String, Integer> sizes = new TreeMap<>();
+        private final Map<String, Integer> prices = new TreeMap<>();
+
+        private void add(Entry entry, int delta) {
+            total += delta;
+            adjust(categories, entry.categoryId(), delta);
+            adjust(sizes, entry.size(), delta);
+            adjust(prices, entry.priceRange(), delta);
+        }
+
+        private static <K> void adjust(Map<K, Integer> counts, K key, int delta) {
+            if (key != null) {
+                counts.merge(key, delta, (current, d) -> current + d == 0 ? null : current + d);
+            }
+        }
+    }
+
+    /**
+     * Builds the index from every product in the database once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Product> products = productRepository.findAll();
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            all.clear();
+            productsByValue.clear();
+            countsByCombo.clear();
+            products.forEach(product -> addEntry(toEntry(product)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Keeps the facets in sync with product writes once their transaction has committed.
+     *
+     * @param event Product change published by the service layer
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            removeEntry(event.productId());
+            if (!event.isDeleted()) {
+                addEntry(toEntry(event.product()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a page of products matching every given filter, newest first, with the facet counts
+     * of all the matching products. The page is read from the smallest ordered set selected by the filters,
+     * checking the other filters per product; the total and the counts are the precomputed ones.
+     *
+     * @param filter Facet filters
+     * @param page Zero-based page number
+     * @param size Page size
+     * @return Page of product IDs, total matches and facet counts
+     */
+    public Result browse(Filter filter, int page, int size) {
+        lock.readLock().lock();
+        try {
+            List<Long> pageIds = new ArrayList<>(size);
+            long skip = (long) page * size;
+            for (Entry entry : candidates(filter)) {
+                if (pageIds.size() == size) {
+                    break;
+                }
+                if (!matches(entry, filter)) {
+                    continue;
+                }
+                if (skip > 0) {
+                    skip--;
+                } else {
+                    pageIds.add(entry.productId());
+                }
+            }
+
+            Counts counts = countsByCombo.getOrDefault(
+                    comboKey(filter.status(), filter.categoryId(), filter.size(), filter.priceRange()), Counts.EMPTY);
+            return new Result(pageIds, counts.total, new TreeMap<>(counts.categories),
+                    new TreeMap<>(counts.sizes), new TreeMap<>(counts.prices));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the label of the price band a price falls into.
+     *
+     * @param price Product price (may be null)
+     * @return Label of the band, or null if the price is null
+     */
+    public static String priceRange(Money price) {
+        if (price == null) {
+            return null;
+        }
+        for (int i = PRICE_BOUNDS.length - 1; i > 0; i--) {
+            if (price.compareTo(PRICE_BOUNDS[i]) >= 0) {
+                return PRICE_LABELS[i];
+            }
+        }
+        return PRICE_LABELS[0];
+    }
+
+    // Smallest of the ordered sets selected by the filters, or every product without filters
+    private NavigableSet<Entry> candidates(Filter filter) {
+        List<NavigableSet<Entry>> selected = new ArrayList<>();
+        addSelected(selected, "status", filter.status());
+        addSelected(selected, "category", filter.categoryId());
+        addSelected(selected, "size", filter.size());
+        addSelected(selected, "price", filter.priceRange());
+        return selected.stream()
+                .min(Comparator.comparingInt(NavigableSet::size))
+                .orElse(all);
+    }
+
+    private void addSelected(List<NavigableSet<Entry>> selected, String facet, Object value) {
+        if (value != null) {
+            selected.add(productsByValue.getOrDefault(key(facet, value), Collections.emptyNavigableSet()));
+        }
+    }
+
+    private static boolean matches(Entry entry, Filter filter) {
+        return (filter.status() == null || filter.status().equals(entry.status()))
+                && (filter.categoryId() == null || filter.categoryId().equals(entry.categoryId()))
+                && (filter.size() == null || filter.size().equals(entry.size()))
+                && (filter.priceRange() == null || filter.priceRange().equals(entry.priceRange()));
+    }
+
+    private Entry toEntry(Product product) {
+        return new Entry(
+                product.getProductId(),
+                product.getStatus(),
+                product.getCategory() != null ? product.getCategory().getCategoryId() : null,
+                product.getSize(),
+                priceRange(product.getPrice()),
+                product.getPublicationDate() != null ? product.getPublicationDate().getTime() : 0L);
+    }
+
+    private void addEntry(Entry entry) {
+        entries.put(entry.productId(), entry);
+        all.add(entry);
+        forEachValue(entry, key -> productsByValue.computeIfAbsent(key, k -> new TreeSet<>(NEWEST_FIRST)).add(entry));
+        forEachCombo(entry, combo -> countsByCombo.computeIfAbsent(combo, c -> new Counts()).add(entry, 1));
+    }
+
+    private void removeEntry(Long productId) {
+        Entry entry = entries.remove(productId);
+        if (entry == null) {
+            return;
+        }
+        all.remove(entry);
+        forEachValue(entry, key -> {
+            NavigableSet<Entry> products = productsByValue.get(key);
+            if (products != null) {
+                products.remove(entry);
+                if (products.isEmpty()) {
+                    productsByValue.remove(key);
+                }
+            }
+        });
+        forEachCombo(entry, combo -> {
+            Counts counts = countsByCombo.get(combo);
+            counts.add(entry, -1);
+            if (counts.total == 0) {
+                countsByCombo.remove(combo);
+            }
+        });
+    }
+
+    private static void forEachValue(Entry entry, Consumer<String> action) {
+        if (entry.status() != null) {
+            action.accept(key("status", entry.status()));
+        }
+        if (entry.categoryId() != null) {
+            action.accept(key("category", entry.categoryId()));
+        }
+        if (entry.size() != null) {
+            action.accept(key("size", entry.size()));
+        }
+        if (entry.priceRange() != null) {
+            action.accept(key("price", entry.priceRange()));
+        }
+    }
+
+    // Every combination of filters the entry matches: each facet either filtered on its value or not at all.
+    // A facet the entry has no value for is never filtered on, so no combination is visited twice.
+    private static void forEachCombo(Entry entry, Consumer<String> action) {
+        Object[] values = {entry.status(), entry.categoryId(), entry.size(), entry.priceRange()};
+        int present = 0;
+        for (int facet = 0; facet < FACETS; facet++) {
+            if (values[facet] != null) {
+                present |= 1 << facet;
+            }
+        }
+        for (int mask = 0; mask < 1 << FACETS; mask++) {
+            if ((mask & ~present) != 0) {
+                continue;
+            }
+            action.accept(comboKey(
+                    (mask & 1) != 0 ? entry.status() : null,
+                    (mask & 2) != 0 ? entry.categoryId() : null,
+                    (mask & 4) != 0 ? entry.size() : null,
+                    (mask & 8) != 0 ? entry.priceRange() : null));
+        }
+    }
+
+    private static String key(String facet, Object value) {
+        return facet + ":" + value;
+    }
+
+    // Null values are not filtered on, as in Filter
+    private static String comboKey(String status, Long categoryId, String size, String priceRange) {
+        return status + "|" + categoryId + "|" + size + "|" + priceRange;
+    }
+}
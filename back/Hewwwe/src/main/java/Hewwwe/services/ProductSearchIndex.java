@@ -0,0 +1,206 @@
+package Hewwwe.services;
+
+import Hewwwe.entity.Product;
+import Hewwwe.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over the product catalog used by product search.
+ * <p>
+ * Indexes the product name, description, size and category name. Terms are kept in a sorted map,
+ * so prefix queries ("cami" → "camiseta") are a range scan over the term dictionary instead of
+ * a {@code LIKE '%x%'} scan over the product table. Results are ranked with a field-weighted TF-IDF score.
+ * <p>
+ * The index is built once the application is ready and kept up to date from {@link ProductChangedEvent}s.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductSearchIndex {
+
+    // Field weights: a hit in the name matters more than a hit in the description
+    private static final int NAME_WEIGHT = 4;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int SIZE_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    // Score factor applied when a query token only matches a term by prefix
+    private static final double PREFIX_FACTOR = 0.5;
+
+    private final ProductRepository productRepository;
+
+    // term -> (productId -> weight of the term in that product)
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+
+    // productId -> terms of the product, needed to remove the old postings on update/delete
+    private final Map<Long, Map<String, Integer>> documents = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Builds the index from every product in the database once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Product> products = productRepository.findAll();
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            products.forEach(this::addDocument);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Keeps the index in sync with product writes once their transaction has committed,
+     * so a rolled back write never leaves the index ahead of the database.
+     *
+     * @param event Product change published by the service layer
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(event.productId());
+            if (!event.isDeleted()) {
+                addDocument(event.product());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Searches the index. Every token of the query must match a term of the product,
+     * either exactly or as a prefix; products are ordered by relevance, then newest ID first.
+     *
+     * @param query Free-text query
+     * @param page Zero-based page number
+     * @param size Page size
+     * @return IDs of the matching products for the requested page, most relevant first
+     */
+    public List<Long> search(String query, int page, int size) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Double> scores = null;
+        lock.readLock().lock();
+        try {
+            int documentCount = documents.size();
+            for (String token : tokens) {
+                Map<Long, Double> tokenScores = new HashMap<>();
+                // All terms starting with the token: [token, token + Character.MAX_VALUE)
+                for (Map.Entry<String, Map<Long, Integer>> entry
+                        : postings.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+                    double idf = Math.log(1.0 + (double) documentCount / entry.getValue().size());
+                    double factor = entry.getKey().equals(token) ? 1.0 : PREFIX_FACTOR;
+                    entry.getValue().forEach((productId, weight) ->
+                            tokenScores.merge(productId, weight * idf * factor, Double::sum));
+                }
+
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    scores.replaceAll((productId, score) -> score + tokenScores.get(productId));
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())))
+                .skip((long) page * size)
+                .limit(size)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /**
+     * Splits text into lowercase, accent-free alphanumeric tokens.
+     *
+     * @param text Text to tokenize (may be null)
+     * @return List of tokens
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase();
+        for (String token : normalized.split("[^\\p{Alnum}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private Map<String, Integer> terms(Product product) {
+        Map<String, Integer> terms = new HashMap<>();
+        addTerms(terms, product.getName(), NAME_WEIGHT);
+        addTerms(terms, product.getDescription(), DESCRIPTION_WEIGHT);
+        addTerms(terms, product.getSize(), SIZE_WEIGHT);
+        if (product.getCategory() != null) {
+            addTerms(terms, product.getCategory().getName(), CATEGORY_WEIGHT);
+        }
+        return terms;
+    }
+
+    private void addTerms(Map<String, Integer> terms, String text, int weight) {
+        for (String token : tokenize(text)) {
+            terms.merge(token, weight, Integer::sum);
+        }
+    }
+
+    private void addDocument(Product product) {
+        addDocument(product.getProductId(), terms(product));
+    }
+
+    private void addDocument(Long productId, Map<String, Integer> terms) {
+        documents.put(productId, terms);
+        terms.forEach((term, weight) ->
+                postings.computeIfAbsent(term, t -> new HashMap<>()).put(productId, weight));
+    }
+
+    private void removeDocument(Long productId) {
+        Map<String, Integer> terms = documents.remove(productId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms.keySet()) {
+            Map<Long, Integer> products = postings.get(term);
+            if (products != null) {
+                products.remove(productId);
+                if (products.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package Hewwwe.services;
 
+import Hewwwe.dto.ProductBrowseDTO;
+import Hewwwe.dto.ProductPageDTO;
 import Hewwwe.dto.ProductResponseDTO;
 import Hewwwe.dto.UserResponseDTO;
 import Hewwwe.entity.Product;
 import Hewwwe.dto.ProductCreateDTO;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Service interface for managing Product entities.
@@ -19,12 +22,28 @@ public interface ProductService {
      * @return List of all available products as DTOs
      */
     List<ProductResponseDTO> findAll();
+    /**
+     * Retrieves one page of available products, newest first, using keyset pagination.
+     * 
+     * @param cursor Token returned as {@code nextCursor} by the previous page, or null for the first page
+     * @param size Maximum number of products in the page
+     * @return Page of available products as DTOs plus the cursor of the next page
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    ProductPageDTO findAvailablePage(String cursor, int size);
     /**
      * Retrieves all products including those that are not available (admin view).
      * 
      * @return Complete list of all products as DTOs
      */
     List<ProductResponseDTO> findAllForAdmin();
+    /**
+     * Streams all products including those that are not available (admin view).
+     * Must be consumed and closed inside a transaction.
+     * 
+     * @return Stream of all products as DTOs
+     */
+    Stream<ProductResponseDTO> streamAllForAdmin();
     /**
      * Finds a product by its ID and returns it as a DTO.
      * 
@@ -95,12 +114,27 @@ public interface ProductService {
      */
     List<ProductResponseDTO> findByStatus(String status);
     /**
-     * Searches for products matching a keyword in name or description.
+     * Searches for products matching a keyword in name, description, size or category name,
+     * ordered by relevance.
      * 
      * @param keyword Search term
-     * @return List of matching products as DTOs
+     * @param page Zero-based page number
+     * @param size Page size
+     * @return Requested page of matching products as DTOs
+     */
+    List<ProductResponseDTO> searchProducts(String keyword, int page, int size);
+    /**
+     * Browses the catalog with combined facet filters.
+     * 
+     * @param status Product status (AVAILABLE, SOLD), or null for any
+     * @param categoryId Category ID, or null for any
+     * @param size Product size, or null for any
+     * @param priceRange Price band label (e.g. "25-50"), or null for any
+     * @param page Zero-based page number
+     * @param pageSize Page size
+     * @return Page of matching products and facet counts per category, size and price band
      */
-    List<ProductResponseDTO> searchProducts(String keyword);
+    ProductBrowseDTO browse(String status, Long categoryId, String size, String priceRange, int page, int pageSize);
     /**
      * Finds the user (owner) of a specific product.
      * 
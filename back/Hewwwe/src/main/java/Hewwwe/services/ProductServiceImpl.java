@@ -3,23 +3,36 @@ package Hewwwe.services;
 import Hewwwe.entity.Cart;
 import Hewwwe.entity.Category;
 import Hewwwe.entity.Exchange;
+import Hewwwe.entity.Money;
 import Hewwwe.entity.Product;
 import Hewwwe.entity.User;
 import Hewwwe.exception.ResourceNotFoundException;
+import Hewwwe.mapper.ProductMapper;
 import Hewwwe.repository.CartRepository;
-import Hewwwe.repository.CategoryRepository;
 import Hewwwe.repository.ExchangeRepository;
 import Hewwwe.repository.ProductRepository;
 import Hewwwe.repository.UserRepository;
+import Hewwwe.dto.ProductBrowseDTO;
+import Hewwwe.dto.ProductPageDTO;
 import Hewwwe.dto.ProductResponseDTO;
 import Hewwwe.dto.UserResponseDTO;
 import Hewwwe.dto.ProductCreateDTO;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service implementation for managing products.
@@ -32,23 +45,64 @@ public class ProductServiceImpl implements ProductService {
 
     // Repositories for accessing data
     private final ProductRepository productRepository;
-    private final CategoryRepository categoryRepository;
     private final UserRepository userRepository;
     private final CartRepository cartRepository;
     private final ExchangeRepository exchangeRepository;
+    private final CategoryService categoryService;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductMapper productMapper;
+
+    // Upper bound for a catalog page, whatever the client asks for
+    private static final int MAX_PAGE_SIZE = 100;
 
     /**
      * Retrieves all available products.
-     * Filters products by status 'AVAILABLE'.
+     * Filters products by status 'AVAILABLE' in the database.
      * 
      * @return List of available product DTOs
      */
     @Override
+    @Transactional(readOnly = true)
     public List<ProductResponseDTO> findAll() {
-        return productRepository.findAll().stream()
-                .filter(product -> "AVAILABLE".equals(product.getStatus()))
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+        return productRepository.findDtosByStatus("AVAILABLE");
+    }
+
+    /**
+     * Retrieves a page of available products ordered by publication date and ID (newest first).
+     * Seeks directly past the last product of the previous page instead of using an offset,
+     * so every page costs the same regardless of how deep the client has scrolled.
+     * 
+     * @param cursor Cursor of the previous page, or null/blank for the first page
+     * @param size Requested page size (clamped to 1..100)
+     * @return Page of available product DTOs
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public ProductPageDTO findAvailablePage(String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // Fetch one extra row to know whether another page follows
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        List<ProductResponseDTO> products;
+        if (cursor == null || cursor.isBlank()) {
+            products = productRepository.findFirstPageByStatus("AVAILABLE", limit);
+        } else {
+            String[] position = decodeCursor(cursor);
+            products = productRepository.findPageByStatusAfter(
+                    "AVAILABLE",
+                    Timestamp.from(Instant.parse(position[0])),
+                    Long.valueOf(position[1]),
+                    limit);
+        }
+
+        boolean hasNext = products.size() > pageSize;
+        if (hasNext) {
+            products = products.subList(0, pageSize);
+        }
+        String nextCursor = hasNext ? encodeCursor(products.get(products.size() - 1)) : null;
+        return new ProductPageDTO(products, nextCursor, hasNext);
     }
     
     /**
@@ -57,10 +111,19 @@ public class ProductServiceImpl implements ProductService {
      * @return List of all product DTOs
      */
     @Override
+    @Transactional(readOnly = true)
     public List<ProductResponseDTO> findAllForAdmin() {
-        return productRepository.findAll().stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+        return productRepository.findAllDtos();
+    }
+
+    /**
+     * Streams all products for admin view, reading them through a database cursor.
+     * 
+     * @return Stream of all product DTOs
+     */
+    @Override
+    public Stream<ProductResponseDTO> streamAllForAdmin() {
+        return productRepository.streamAllDtos();
     }
 
     /**
@@ -71,6 +134,7 @@ public class ProductServiceImpl implements ProductService {
      * @return Saved product DTO
      */
     @Override
+    @Transactional
     public ProductResponseDTO save(ProductCreateDTO productDTO) {
 
         Product product = Product.builder()
@@ -88,9 +152,8 @@ public class ProductServiceImpl implements ProductService {
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
         product.setUser(user);
 
-        // Validate and set Category
-        Category category = categoryRepository.findById(productDTO.getCategoryId())
-                .orElseThrow(() -> new ResourceNotFoundException("Category not found"));
+        // Validate and set Category (served from the category cache)
+        Category category = categoryService.getCategoryById(productDTO.getCategoryId());
         product.setCategory(category);
 
         // Set Cart if present
@@ -108,7 +171,12 @@ public class ProductServiceImpl implements ProductService {
         }
 
         Product savedProduct = productRepository.save(product);
-        return mapToDTO(savedProduct);
+        eventPublisher.publishEvent(ProductChangedEvent.saved(savedProduct));
+        ProductResponseDTO response = productMapper.toResponse(savedProduct);
+        if (productDTO.getCartId() != null) {
+            cartRepository.recalculateTotals(List.of(productDTO.getCartId()));
+        }
+        return response;
     }
 
     /**
@@ -137,7 +205,8 @@ public class ProductServiceImpl implements ProductService {
         if (product.getStatus() != null && !product.getStatus().equals(existingProduct.getStatus())) {
             existingProduct.setStatus(product.getStatus());
             Product savedProduct = productRepository.save(existingProduct);
-            return mapToDTO(savedProduct);
+            eventPublisher.publishEvent(ProductChangedEvent.saved(savedProduct));
+            return productMapper.toResponse(savedProduct);
         }
         
         // Build DTO for full update
@@ -174,15 +243,20 @@ public class ProductServiceImpl implements ProductService {
     /**
      * Updates an existing product by ID.
      * Updates fields and relationships if provided.
+     * The running totals of the carts holding the product are reconciled when its price or cart changes.
      * 
      * @param id ID of the product to update
      * @param product Product entity with updated data
      * @return Updated product DTO
      */
     @Override
+    @Transactional
     public ProductResponseDTO update(Long id, Product product) {
         return productRepository.findById(id)
                 .map(existingProduct -> {
+                    Money previousPrice = existingProduct.getPrice();
+                    Long previousCartId = existingProduct.getCart() != null ? existingProduct.getCart().getCartId() : null;
+
                     // Update basic fields
                     existingProduct.setName(product.getName());
                     existingProduct.setDescription(product.getDescription());
@@ -193,8 +267,7 @@ public class ProductServiceImpl implements ProductService {
 
                     // Update relationships if provided
                     if (product.getCategory() != null && product.getCategory().getCategoryId() != null) {
-                        Category category = categoryRepository.findById(product.getCategory().getCategoryId())
-                                .orElseThrow(() -> new ResourceNotFoundException("Category not found"));
+                        Category category = categoryService.getCategoryById(product.getCategory().getCategoryId());
                         existingProduct.setCategory(category);
                     }
 
@@ -217,7 +290,18 @@ public class ProductServiceImpl implements ProductService {
                     }
 
                     Product updatedProduct = productRepository.save(existingProduct);
-                    return mapToDTO(updatedProduct);
+                    eventPublisher.publishEvent(ProductChangedEvent.saved(updatedProduct));
+                    // Mapped first: the reconciliation below clears the persistence context
+                    ProductResponseDTO response = productMapper.toResponse(updatedProduct);
+
+                    Long cartId = updatedProduct.getCart() != null ? updatedProduct.getCart().getCartId() : null;
+                    if (!Objects.equals(previousCartId, cartId) || !Objects.equals(previousPrice, updatedProduct.getPrice())) {
+                        List<Long> cartIds = Stream.of(previousCartId, cartId).filter(Objects::nonNull).distinct().toList();
+                        if (!cartIds.isEmpty()) {
+                            cartRepository.recalculateTotals(cartIds);
+                        }
+                    }
+                    return response;
                 })
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
     }
@@ -228,11 +312,17 @@ public class ProductServiceImpl implements ProductService {
      * @param id ID of the product to delete
      */
     @Override
+    @Transactional
     public void delete(Long id) {
         if (!productRepository.existsById(id)) {
             throw new ResourceNotFoundException("Product not found with id: " + id);
         }
+        Long cartId = productRepository.findCartIdById(id).orElse(null);
         productRepository.deleteById(id);
+        if (cartId != null) {
+            cartRepository.recalculateTotals(List.of(cartId));
+        }
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
     }
 
     /**
@@ -242,12 +332,10 @@ public class ProductServiceImpl implements ProductService {
      * @return List of product DTOs in the category
      */
     @Override
+    @Transactional(readOnly = true)
     public List<ProductResponseDTO> findByCategory(Long categoryId) {
-        return categoryRepository.findById(categoryId)
-                .map(category -> productRepository.findByCategory(category).stream()
-                        .map(this::mapToDTO)
-                        .collect(Collectors.toList()))
-                .orElseThrow(() -> new ResourceNotFoundException("Category not found"));
+        categoryService.getCategoryById(categoryId);
+        return productRepository.findDtosByCategoryId(categoryId);
     }
 
     /**
@@ -257,12 +345,12 @@ public class ProductServiceImpl implements ProductService {
      * @return List of product DTOs owned by the user
      */
     @Override
+    @Transactional(readOnly = true)
     public List<ProductResponseDTO> findByUser(Long userId) {
-        return userRepository.findById(userId)
-                .map(user -> productRepository.findByUser(user).stream()
-                        .map(this::mapToDTO)
-                        .collect(Collectors.toList()))
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        if (!userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("User not found");
+        }
+        return productRepository.findDtosByUserId(userId);
     }
 
     /**
@@ -272,23 +360,74 @@ public class ProductServiceImpl implements ProductService {
      * @return List of product DTOs with the specified status
      */
     @Override
+    @Transactional(readOnly = true)
     public List<ProductResponseDTO> findByStatus(String status) {
-        return productRepository.findByStatus(status).stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+        return productRepository.findDtosByStatus(status);
+    }
+
+    /**
+     * Searches products by keyword in name, description, size and category name.
+     * Uses the in-memory {@link ProductSearchIndex} and only loads the products of the requested page.
+     * 
+     * @param keyword Keyword(s) to search for; the last word may be a prefix
+     * @param page Zero-based page number
+     * @param size Page size (clamped to 1..100)
+     * @return List of matching product DTOs, most relevant first
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductResponseDTO> searchProducts(String keyword, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        return findAllInOrder(productSearchIndex.search(keyword, Math.max(page, 0), pageSize));
     }
 
     /**
-     * Searches products by keyword in name or description.
+     * Browses products with facet filters using the in-memory {@link ProductFacetIndex}.
+     * Only the products of the requested page are loaded from the database.
      * 
-     * @param keyword Keyword to search for
-     * @return List of product DTOs matching the keyword
+     * @param status Product status filter
+     * @param categoryId Category filter
+     * @param size Size filter
+     * @param priceRange Price band filter
+     * @param page Zero-based page number
+     * @param pageSize Page size (clamped to 1..100)
+     * @return Page of product DTOs with facet counts
      */
     @Override
-    public List<ProductResponseDTO> searchProducts(String keyword) {
-        return productRepository.findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCase(keyword, keyword)
-                .stream()
-                .map(this::mapToDTO)
+    @Transactional(readOnly = true)
+    public ProductBrowseDTO browse(String status, Long categoryId, String size, String priceRange,
+                                   int page, int pageSize) {
+        int limit = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+        int pageNumber = Math.max(page, 0);
+        ProductFacetIndex.Result result = productFacetIndex.browse(
+                new ProductFacetIndex.Filter(status, categoryId, size, priceRange), pageNumber, limit);
+
+        return new ProductBrowseDTO(
+                findAllInOrder(result.productIds()),
+                result.total(),
+                pageNumber,
+                limit,
+                result.categoryCounts(),
+                result.sizeCounts(),
+                result.priceCounts());
+    }
+
+    /**
+     * Loads the given products and maps them to DTOs, keeping the order of the IDs.
+     * 
+     * @param ids Product IDs in the desired order
+     * @return Product DTOs in the same order (missing products are skipped)
+     */
+    private List<ProductResponseDTO> findAllInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        // The IN query does not guarantee the order of the IDs
+        Map<Long, ProductResponseDTO> productsById = productRepository.findDtosByIdIn(ids).stream()
+                .collect(Collectors.toMap(ProductResponseDTO::getProductId, Function.identity()));
+        return ids.stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
@@ -304,52 +443,44 @@ public class ProductServiceImpl implements ProductService {
     }
 
     /**
-     * Maps a Product entity to a ProductResponseDTO.
+     * Encodes the keyset position of a product as an opaque, URL-safe cursor.
+     * The full-precision instant is kept so ties on publication date are resolved by ID.
      * 
-     * @param product Product entity to map
-     * @return Mapped product DTO
+     * @param product Last product of the current page
+     * @return Cursor token
      */
-    private ProductResponseDTO mapToDTO(Product product) {
-        ProductResponseDTO dto = new ProductResponseDTO();
-        dto.setProductId(product.getProductId());
-        dto.setName(product.getName());
-        dto.setDescription(product.getDescription());
-        dto.setPrice(product.getPrice());
-        dto.setImage(product.getImage());
-        dto.setSize(product.getSize());
-        dto.setStatus(product.getStatus());
-        dto.setPublicationDate(product.getPublicationDate());
-
-        // Map user information
-        if (product.getUser() != null) {
-            dto.setUserId(product.getUser().getUserId());
-            dto.setUserName(product.getUser().getName());
-            dto.setUserEmail(product.getUser().getEmail());
-        }
-
-        // Map category information
-        if (product.getCategory() != null) {
-            dto.setCategoryId(product.getCategory().getCategoryId());
-            dto.setCategoryName(product.getCategory().getName());
-        }
+    private String encodeCursor(ProductResponseDTO product) {
+        String position = product.getPublicationDate().toInstant() + "|" + product.getProductId();
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
 
-        // Map optional IDs
-        if (product.getCart() != null) {
-            dto.setCartId(product.getCart().getCartId());
-        }
-        if (product.getExchanges() != null && !product.getExchanges().isEmpty() && 
-            product.getExchanges().get(0).getExchangeId() != null) {
-            dto.setExchangeId(product.getExchanges().get(0).getExchangeId());
+    /**
+     * Decodes a cursor produced by {@link #encodeCursor(ProductResponseDTO)}.
+     * 
+     * @param cursor Cursor token
+     * @return Array with the ISO-8601 publication instant and the product ID
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    private String[] decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = position.split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            Instant.parse(parts[0]);
+            Long.parseLong(parts[1]);
+            return parts;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
         }
-
-        return dto;
     }
-    
 
     @Override
     public ProductResponseDTO findById(Long id) {
         return productRepository.findById(id)
-                .map(this::mapToDTO)
+                .map(productMapper::toResponse)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found"));
     }
 
@@ -0,0 +1,35 @@
+package Hewwwe.services;
+
+import Hewwwe.entity.Cart;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+public interface ReservationService {
+
+    /**
+     * Result of placing a hold.
+     *
+     * @param reservedUntil End of the hold
+     * @param added Whether the product entered the cart, rather than having its hold renewed
+     * @param previousCartId Cart whose expired hold was taken over, or null
+     */
+    record Hold(Date reservedUntil, boolean added, Long previousCartId) {
+    }
+
+    /**
+     * Result of placing the holds of a batch of products.
+     *
+     * @param reservedUntil End of the holds
+     * @param heldProductIds Products now held by the cart; the others are sold or held by another cart
+     * @param previousCartIds Carts whose expired holds were taken over
+     */
+    record BatchHold(Date reservedUntil, Set<Long> heldProductIds, List<Long> previousCartIds) {
+    }
+
+    Hold hold(Cart cart, Long productId);
+    BatchHold holdAll(Cart cart, Collection<Long> productIds);
+    int releaseExpired();
+}
@@ -0,0 +1,155 @@
+package Hewwwe.services;
+
+import Hewwwe.entity.Cart;
+import Hewwwe.exception.ConflictException;
+import Hewwwe.repository.CartRepository;
+import Hewwwe.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation of the Reservation Service that holds products while they sit in a cart.
+ * <p>
+ * Adding a product to a cart places a time-bounded hold on it, stored in the product row
+ * ({@code cart_id} and {@code reserved_until}); no other cart can take the product until the hold expires.
+ * Expiries are tracked in a {@link ReservationWheel}, loaded from the database at startup, and a scheduled
+ * job releases the expired holds in batches, so abandoned carts give their products back
+ * without ever sweeping the product table.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReservationServiceImpl implements ReservationService {
+
+    private static final long TICK_MILLIS = 1000;
+    private static final int SLOTS = 512;
+
+    private final ProductRepository productRepository;
+    private final CartRepository cartRepository;
+    private final TableVersions tableVersions;
+    private final CartSummaryCache cartSummaryCache;
+    private final ExchangeMatcher exchangeMatcher;
+    private final PlatformTransactionManager transactionManager;
+
+    private final ReservationWheel wheel = new ReservationWheel(TICK_MILLIS, SLOTS, System.currentTimeMillis());
+
+    @Value("${hewwwe.reservations.hold-minutes:15}")
+    private long holdMinutes;
+
+    @Value("${hewwwe.reservations.release-batch-size:500}")
+    private int batchSize;
+
+    /**
+     * Places a hold on a product for a cart, or renews it if the cart already holds the product.
+     *
+     * @param cart The cart taking the product
+     * @param productId The ID of the product to hold
+     * @return The hold placed, telling whether the product is new to the cart
+     * @throws ConflictException if the product is sold or held by another cart
+     */
+    @Override
+    @Transactional
+    public Hold hold(Cart cart, Long productId) {
+        Date now = new Date();
+        Date until = new Date(now.getTime() + TimeUnit.MINUTES.toMillis(holdMinutes));
+        Hold hold;
+        if (productRepository.renewHold(productId, cart, until) == 1) {
+            hold = new Hold(until, false, null);
+        } else {
+            Long previousCartId = productRepository.findCartIdById(productId).orElse(null);
+            if (productRepository.takeHold(productId, cart, until, now) == 0) {
+                throw new ConflictException("Product " + productId + " is no longer available or is reserved in another cart");
+            }
+            hold = new Hold(until, true, previousCartId);
+        }
+        wheel.schedule(productId, until.getTime());
+        return hold;
+    }
+
+    /**
+     * Places or renews the holds of many products for a cart with a single update.
+     * Products that are sold or held by another cart are left alone.
+     *
+     * @param cart The cart taking the products
+     * @param productIds The IDs of the products to hold
+     * @return The holds placed, with the products actually held
+     */
+    @Override
+    @Transactional
+    public BatchHold holdAll(Cart cart, Collection<Long> productIds) {
+        Date now = new Date();
+        Date until = new Date(now.getTime() + TimeUnit.MINUTES.toMillis(holdMinutes));
+        List<Long> previousCartIds = productRepository.findCartIdsOfTakeableHolds(productIds, cart, now);
+        productRepository.holdAll(productIds, cart, until, now);
+        Set<Long> held = productRepository.findIdsInCart(productIds, cart.getCartId());
+        held.forEach(productId -> wheel.schedule(productId, until.getTime()));
+        return new BatchHold(until, held, previousCartIds);
+    }
+
+    /**
+     * Schedules the holds stored in the database, so they still expire after a restart.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadHolds() {
+        productRepository.findHolds()
+                .forEach(hold -> wheel.schedule(hold.productId(), hold.reservedUntil().getTime()));
+    }
+
+    /**
+     * Releases the holds that expired since the last run: their products leave the cart and become
+     * available to everyone again, and the totals of their carts are recomputed.
+     * Runs in the background, one transaction per batch.
+     *
+     * @return Number of products released
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${hewwwe.reservations.reap-interval-ms:1000}")
+    public int releaseExpired() {
+        List<Long> expired = wheel.advance(System.currentTimeMillis());
+        if (expired.isEmpty()) {
+            return 0;
+        }
+
+        Date now = new Date();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        // Wheel entries are only hints: a renewed hold leaves its old entry behind
+        List<Long> released = new ArrayList<>();
+        for (int from = 0; from < expired.size(); from += batchSize) {
+            List<Long> batch = expired.subList(from, Math.min(expired.size(), from + batchSize));
+            released.addAll(transaction.execute(status -> {
+                List<Long> productIds = productRepository.lockExpiredHolds(batch, now);
+                if (productIds.isEmpty()) {
+                    return List.<Long>of();
+                }
+                List<Long> cartIds = productRepository.findCartIdsOfExpiredHolds(productIds, now);
+                productRepository.releaseExpiredHolds(productIds, now);
+                if (!cartIds.isEmpty()) {
+                    cartRepository.recalculateTotals(cartIds);
+                }
+                return productIds;
+            }));
+        }
+        if (!released.isEmpty()) {
+            tableVersions.bump(TableVersions.Table.PRODUCT);
+            cartSummaryCache.evictProducts(released);
+            exchangeMatcher.releaseHolds(released);
+            log.debug("Released {} expired holds, {} still scheduled", released.size(), wheel.size());
+        }
+        return released.size();
+    }
+}
@@ -0,0 +1,91 @@
+package Hewwwe.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hashed timing wheel of reservation expiries.
+ * <p>
+ * Time is divided in ticks and a hold expiring at tick {@code t} is kept in slot {@code t % slots},
+ * so scheduling is O(1) and advancing the wheel only visits the slots of the ticks that elapsed,
+ * never the whole set of holds. Holds more than one revolution away stay in their slot until
+ * their tick comes round again.
+ * <p>
+ * Entries are hints: the database decides whether a hold really expired, so a hold released
+ * in the meantime only costs a no-op update. A renewed hold is rescheduled, possibly in another slot;
+ * its old entry is dropped without firing when its tick comes, so the hold is not reported early.
+ */
+final class ReservationWheel {
+
+    private final long tickMillis;
+
+    // productId -> tick at which the hold expires, one map per slot
+    private final List<Map<Long, Long>> slots;
+
+    // productId -> latest tick the hold was scheduled for; older slot entries are stale
+    private final Map<Long, Long> deadlines = new HashMap<>();
+
+    // Last tick already processed
+    private long currentTick;
+
+    ReservationWheel(long tickMillis, int slotCount, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slots.add(new HashMap<>());
+        }
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * Schedules the expiry of a hold. Expiries already in the past fire on the next advance.
+     *
+     * @param productId ID of the held product
+     * @param expiresAtMillis End of the hold, in epoch milliseconds
+     */
+    synchronized void schedule(Long productId, long expiresAtMillis) {
+        // Rounded up, so a hold never fires before it expired
+        long tick = deadlines.merge(productId,
+                Math.max((expiresAtMillis + tickMillis - 1) / tickMillis, currentTick + 1), Math::max);
+        slots.get(slotOf(tick)).put(productId, tick);
+    }
+
+    /**
+     * Moves the wheel up to the given time and removes the holds that expired on the way.
+     *
+     * @param nowMillis Current time, in epoch milliseconds
+     * @return IDs of the products whose hold expired
+     */
+    synchronized List<Long> advance(long nowMillis) {
+        long nowTick = nowMillis / tickMillis;
+        List<Long> expired = new ArrayList<>();
+        // After a long pause every slot is due: one full revolution is enough
+        long steps = Math.min(nowTick - currentTick, slots.size());
+        for (long step = 1; step <= steps; step++) {
+            slots.get(slotOf(currentTick + step)).entrySet().removeIf(entry -> {
+                if (entry.getValue() > nowTick) {
+                    return false;
+                }
+                if (deadlines.remove(entry.getKey(), entry.getValue())) {
+                    expired.add(entry.getKey());
+                }
+                return true;
+            });
+        }
+        currentTick = Math.max(currentTick, nowTick);
+        return expired;
+    }
+
+    /**
+     * @return Number of scheduled holds
+     */
+    synchronized int size() {
+        return deadlines.size();
+    }
+
+    private int slotOf(long tick) {
+        return (int) (tick % slots.size());
+    }
+}
@@ -0,0 +1,136 @@
+package Hewwwe.services;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Per-table version counters used to answer conditional GETs on catalog reads.
+ * <p>
+ * The service layer bumps the version of a table after every committed write to it.
+ * Read endpoints derive a strong ETag and a Last-Modified date from the versions of the tables
+ * their response depends on, and answer {@code If-None-Match}/{@code If-Modified-Since}
+ * with 304 before querying the database or serializing anything.
+ */
+@Component
+public class TableVersions {
+
+    /**
+     * Tables whose reads support conditional GETs.
+     */
+    public enum Table {
+        PRODUCT,
+        CATEGORY,
+        USER
+    }
+
+    // Distinguishes ETags issued before and after a restart, when the counters start over
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final Map<Table, AtomicLong> versions = new EnumMap<>(Table.class);
+    private final Map<Table, AtomicLong> lastModified = new EnumMap<>(Table.class);
+
+    public TableVersions() {
+        long now = System.currentTimeMillis();
+        for (Table table : Table.values()) {
+            versions.put(table, new AtomicLong());
+            lastModified.put(table, new AtomicLong(now));
+        }
+    }
+
+    /**
+     * Marks a table as changed.
+     *
+     * @param table Table that was written
+     */
+    public void bump(Table table) {
+        versions.get(table).incrementAndGet();
+        lastModified.get(table).set(System.currentTimeMillis());
+    }
+
+    /**
+     * Bumps the product table version once a product write has committed.
+     *
+     * @param event Product change published by the service layer
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        bump(Table.PRODUCT);
+    }
+
+    /**
+     * Builds the strong ETag of a response depending on the given tables.
+     *
+     * @param tables Tables the response is built from
+     * @return Quoted ETag value
+     */
+    public String etag(Table... tables) {
+        StringBuilder etag = new StringBuilder("\"").append(epoch);
+        for (Table table : tables) {
+            etag.append('-').append(versions.get(table).get());
+        }
+        return etag.append('"').toString();
+    }
+
+    /**
+     * Returns the last time any of the given tables was written.
+     *
+     * @param tables Tables the response is built from
+     * @return Epoch milliseconds of the latest write
+     */
+    public long lastModified(Table... tables) {
+        long latest = 0;
+        for (Table table : tables) {
+            latest = Math.max(latest, lastModified.get(table).get());
+        }
+        return latest;
+    }
+
+    /**
+     * Answers a conditional GET: 304 if the client already has the current version,
+     * otherwise 200 with the body built by the supplier, tagged with ETag and Last-Modified.
+     * The version is read before the body is built, so a concurrent write can only make the
+     * client revalidate again, never keep stale data.
+     *
+     * @param request Current request, carrying the conditional headers
+     * @param body Builds the response body; not called when answering 304
+     * @param tables Tables the response is built from
+     * @return 304 or 200 response
+     */
+    public <T> ResponseEntity<T> conditionalGet(WebRequest request, Supplier<T> body, Table... tables) {
+        return conditionalGet(request, null, body, tables);
+    }
+
+    /**
+     * Same as {@link #conditionalGet(WebRequest, Supplier, Table...)}, setting the Content-Type
+     * of the 200 response. Needed for bodies that do not go through a message converter,
+     * such as streamed responses.
+     *
+     * @param request Current request, carrying the conditional headers
+     * @param contentType Content type of the 200 response (null to let Spring choose)
+     * @param body Builds the response body; not called when answering 304
+     * @param tables Tables the response is built from
+     * @return 304 or 200 response
+     */
+    public <T> ResponseEntity<T> conditionalGet(WebRequest request, MediaType contentType, Supplier<T> body,
+                                                Table... tables) {
+        String etag = etag(tables);
+        long modified = lastModified(tables);
+        if (request.checkNotModified(etag, modified)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).lastModified(modified).build();
+        }
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok().eTag(etag).lastModified(modified);
+        if (contentType != null) {
+            ok.contentType(contentType);
+        }
+        return ok.body(body.get());
+    }
+}
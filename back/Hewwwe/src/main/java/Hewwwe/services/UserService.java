@@ -9,10 +9,12 @@ import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 public interface UserService {
     List<User> findAll();
+    Stream<User> streamAll();
     Optional<User> findById(Long id);
     User save(User user);
     User update(Long id, User user);
@@ -10,8 +10,10 @@ import Hewwwe.entity.Product;
 import Hewwwe.entity.User;
 import Hewwwe.entity.enums.Rol;
 import Hewwwe.exception.ResourceNotFoundException;
+import Hewwwe.repository.CartRepository;
 import Hewwwe.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -20,18 +22,28 @@ import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
+    private final CartRepository cartRepository;
     private final PasswordEncoder passwordEncoder;
+    private final TableVersions tableVersions;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CartSummaryCache cartSummaryCache;
 
     @Override
     public List<User> findAll() {
         return userRepository.findAll();
     }
 
+    @Override
+    public Stream<User> streamAll() {
+        return userRepository.streamAll();
+    }
+
     @Override
     public Optional<User> findById(Long id) {
         return userRepository.findByIdWithAddressesAndProducts(id);
@@ -58,51 +70,35 @@ public class UserServiceImpl implements UserService {
                     existingUser.setPassword(passwordEncoder.encode(user.getPassword()));
                 }
                 
-                return userRepository.save(existingUser);
+                User savedUser = userRepository.save(existingUser);
+                // Product listings embed the owner's name and email
+                tableVersions.bump(TableVersions.Table.USER);
+                return savedUser;
             }).orElseThrow(() -> new ResourceNotFoundException("User not found"));
     }
 
+    /**
+     * Returns the cart of a user from the cart summary cache; the database is only read
+     * (and a cart created if the user has none) the first time.
+     *
+     * @param userId The ID of the user
+     * @return The cart of the user, or null if the user does not exist
+     */
+    @Override
     public CartResponseDTO getCartByUserId(Long userId) {
-        System.out.println("UserService: Getting cart for user ID: " + userId);
-        return userRepository.findById(userId).map(user -> {
-            System.out.println("UserService: User found: " + user.getName());
-            Cart cart = user.getCart();
-            if (cart == null) {
-                System.out.println("UserService: No cart found for user, creating a new one");
-                cart = new Cart();
-                cart.setCartDate(new Date());
-                cart.setUser(user);
-                cart.setProducts(new ArrayList<>());
-                user.setCart(cart);
-                userRepository.save(user);
-                System.out.println("UserService: Created new cart with ID: " + cart.getCartId());
-            }
-
-            System.out.println("UserService: Cart found with ID: " + cart.getCartId());
-            System.out.println("UserService: Products in cart: " + (cart.getProducts() != null ? cart.getProducts().size() : "null"));
-            
-            List<Long> productIds = new ArrayList<>();
-            if (cart.getProducts() != null && !cart.getProducts().isEmpty()) {
-                productIds = cart.getProducts().stream()
-                        .map(Product::getProductId)
-                        .collect(Collectors.toList());
-                System.out.println("UserService: Product IDs collected: " + productIds);
-            } else {
-                System.out.println("UserService: No products in cart");
-            }
-
-            CartResponseDTO response = new CartResponseDTO(
-                    cart.getCartId(),
-                    cart.getCartDate(),
-                    user.getUserId(),
-                    productIds
-            );
-            System.out.println("UserService: Returning cart response with " + productIds.size() + " products");
-            return response;
-        }).orElseGet(() -> {
-            System.out.println("UserService: User not found with ID: " + userId);
-            return null;
-        });
+        return cartSummaryCache.get(userId, this::loadCart);
+    }
+
+    private Cart loadCart(Long userId) {
+        return cartRepository.findByUserIdWithProducts(userId)
+                .orElseGet(() -> userRepository.findById(userId).map(user -> {
+                    Cart cart = new Cart();
+                    cart.setCartDate(new Date());
+                    cart.setUser(user);
+                    cart.setProducts(new ArrayList<>());
+                    user.setCart(cart);
+                    return cartRepository.save(cart);
+                }).orElse(null));
     }
 
 
@@ -162,6 +158,7 @@ public class UserServiceImpl implements UserService {
             return allExchanges.stream().map(exchange -> {
                 ExchangeResponseDTO dto = new ExchangeResponseDTO();
                 dto.setExchangeId(exchange.getExchangeId());
+                dto.setVersion(exchange.getVersion());
                 dto.setExchangeDate(exchange.getExchangeDate());
                 dto.setCompletionDate(exchange.getCompletionDate());
                 dto.setStatus(exchange.getStatus());
@@ -202,6 +199,11 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public void delete(Long id) {
+        // The user's products are removed with it
+        userRepository.findById(id).ifPresent(user -> user.getProducts().forEach(product ->
+                eventPublisher.publishEvent(ProductChangedEvent.deleted(product.getProductId()))));
         userRepository.deleteById(id);
+        cartSummaryCache.evictUser(id);
+        tableVersions.bump(TableVersions.Table.USER);
     }
 }
@@ -0,0 +1,48 @@
+package Hewwwe.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The category cache statistics sit under the public catalog path but are for admins only.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CategoryCacheStatsSecurityTest {
+
+    private static final String STATS = "/api/categories/cache/stats";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void anonymousCallersCannotReadStats() throws Exception {
+        mockMvc.perform(get(STATS)).andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void usersCannotReadStats() throws Exception {
+        mockMvc.perform(get(STATS)).andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void adminsCanReadStats() throws Exception {
+        mockMvc.perform(get(STATS)).andExpect(status().isOk());
+    }
+
+    @Test
+    void categoriesStayPublic() throws Exception {
+        mockMvc.perform(get("/api/categories")).andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,46 @@
+package Hewwwe.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The invoice export holds every user's name and email, so only admins may start it.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class InvoiceExportSecurityTest {
+
+    private static final String EXPORT = "/api/invoices/admin/export?from=2025-01-01&to=2025-01-31";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void anonymousCallersCannotExport() throws Exception {
+        mockMvc.perform(get(EXPORT)).andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void usersCannotExport() throws Exception {
+        mockMvc.perform(get(EXPORT)).andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void adminsCanExport() throws Exception {
+        mockMvc.perform(get(EXPORT))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+    }
+}
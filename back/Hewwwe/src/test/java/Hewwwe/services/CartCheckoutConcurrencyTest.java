@@ -0,0 +1,175 @@
+package Hewwwe.services;
+
+import Hewwwe.entity.Address;
+import Hewwwe.entity.Cart;
+import Hewwwe.entity.Category;
+import Hewwwe.entity.Invoice;
+import Hewwwe.entity.InvoiceLine;
+import Hewwwe.entity.Money;
+import Hewwwe.entity.Product;
+import Hewwwe.entity.User;
+import Hewwwe.entity.enums.Rol;
+import Hewwwe.exception.ConflictException;
+import Hewwwe.repository.AddressRepository;
+import Hewwwe.repository.CartRepository;
+import Hewwwe.repository.CategoryRepository;
+import Hewwwe.repository.InvoiceRepository;
+import Hewwwe.repository.ProductRepository;
+import Hewwwe.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Many buyers keep pulling the same few products into their carts and checking out at the same time.
+ * Whatever the interleaving, every product must end up on at most one invoice, and every invoice
+ * must be paid for exactly the products it holds.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CartCheckoutConcurrencyTest {
+
+    private static final int BUYERS = 12;
+    private static final int PRODUCTS = 30;
+    private static final int ROUNDS_PER_BUYER = 40;
+
+    @Autowired
+    private CartService cartService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private AddressRepository addressRepository;
+    @Autowired
+    private CartRepository cartRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void concurrentCheckoutsNeverSellAProductTwice() throws Exception {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        List<Long> productIds = new ArrayList<>();
+        List<Long> cartIds = new ArrayList<>();
+        List<Long> addressIds = new ArrayList<>();
+        Set<Long> buyerIds = new HashSet<>();
+
+        transaction.executeWithoutResult(status -> {
+            Category category = new Category();
+            category.setName("Concurrency");
+            categoryRepository.save(category);
+            User seller = userRepository.save(newUser("seller"));
+            for (int i = 0; i < PRODUCTS; i++) {
+                Product product = new Product();
+                product.setName("Product " + i);
+                product.setPrice(Money.of(10.0 + i));
+                product.setStatus("AVAILABLE");
+                product.setPublicationDate(new Date());
+                product.setUser(seller);
+                product.setCategory(category);
+                productIds.add(productRepository.save(product).getProductId());
+            }
+            for (int i = 0; i < BUYERS; i++) {
+                User buyer = userRepository.save(newUser("buyer" + i));
+                buyerIds.add(buyer.getUserId());
+                Address address = new Address();
+                address.setStreet("Calle " + i);
+                address.setCity("Madrid");
+                address.setUser(buyer);
+                addressIds.add(addressRepository.save(address).getAddressId());
+                Cart cart = new Cart();
+                cart.setCartDate(new Date());
+                cart.setUser(buyer);
+                cartIds.add(cartRepository.save(cart).getCartId());
+            }
+        });
+
+        AtomicInteger checkouts = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(BUYERS);
+        List<Future<?>> buyers = new ArrayList<>();
+        for (int b = 0; b < BUYERS; b++) {
+            Long cartId = cartIds.get(b);
+            Map<String, Object> addressData = Map.of("addressId", addressIds.get(b));
+            Random random = new Random(b);
+            buyers.add(executor.submit(() -> {
+                start.await();
+                for (int round = 0; round < ROUNDS_PER_BUYER; round++) {
+                    Long productId = productIds.get(random.nextInt(productIds.size()));
+                    try {
+                        transaction.executeWithoutResult(status -> cartService.addProduct(cartId, productId));
+                        transaction.executeWithoutResult(status -> cartService.checkoutCart(cartId, addressData));
+                        checkouts.incrementAndGet();
+                    } catch (ConflictException | ConcurrencyFailureException e) {
+                        // Lost the race for the product or a lock: the next round tries again.
+                        // Anything else fails the buyer's future and with it the test.
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> buyer : buyers) {
+            buyer.get();
+        }
+        executor.shutdown();
+
+        transaction.executeWithoutResult(status -> {
+            List<Invoice> invoices = invoiceRepository.findAll().stream()
+                    .filter(invoice -> buyerIds.contains(invoice.getUser().getUserId()))
+                    .toList();
+            assertEquals(checkouts.get(), invoices.size());
+            assertTrue(checkouts.get() > 0, "No checkout succeeded");
+
+            Set<Long> sold = new HashSet<>();
+            for (Invoice invoice : invoices) {
+                assertFalse(invoice.getProducts().isEmpty(), "Invoice " + invoice.getInvoiceId() + " lost its products");
+                long total = 0;
+                for (Product product : invoice.getProducts()) {
+                    assertEquals("SOLD", product.getStatus());
+                    assertTrue(sold.add(product.getProductId()), "Product " + product.getProductId() + " sold twice");
+                    total += product.getPrice().minorUnits();
+                }
+                assertEquals(total, invoice.getTotalAmount().minorUnits());
+                assertEquals(invoice.getProducts().size(), invoice.getLines().size());
+                assertEquals(total, Money.sum(invoice.getLines(), InvoiceLine::getPrice).minorUnits());
+            }
+        });
+    }
+
+    private static User newUser(String username) {
+        User user = new User();
+        user.setName(username);
+        user.setUsername(username + "-" + System.nanoTime());
+        user.setEmail(user.getUsername() + "@example.com");
+        user.setPassword("password");
+        user.setRole(Rol.USER);
+        user.setRegistrationDate(new Date());
+        return user;
+    }
+}
@@ -0,0 +1,79 @@
+package Hewwwe.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Wraparound and catch-up of the reservation timing wheel, with the tick and slot count of ReservationServiceImpl.
+ */
+class ReservationWheelTest {
+
+    private static final long TICK = 1000;
+    private static final int SLOTS = 512;
+    private static final long NOW = 1_700_000_000_000L;
+
+    private static long seconds(long seconds) {
+        return NOW + TimeUnit.SECONDS.toMillis(seconds);
+    }
+
+    @Test
+    void holdMoreThanOneRevolutionAheadFiresOnItsOwnTick() {
+        ReservationWheel wheel = new ReservationWheel(TICK, SLOTS, NOW);
+        wheel.schedule(1L, seconds(600));
+
+        // Its slot is visited after one revolution, but the hold has not expired yet
+        assertTrue(wheel.advance(seconds(100)).isEmpty());
+        assertTrue(wheel.advance(seconds(599)).isEmpty());
+        assertEquals(1, wheel.size());
+
+        assertEquals(List.of(1L), wheel.advance(seconds(600)));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advanceAfterLongPauseReapsEveryExpiredHold() {
+        ReservationWheel wheel = new ReservationWheel(TICK, SLOTS, NOW);
+        wheel.schedule(1L, seconds(5));
+        wheel.schedule(2L, seconds(300));
+        wheel.schedule(3L, seconds(1500));
+        wheel.schedule(4L, seconds(20_000));
+
+        // Ten revolutions without an advance
+        List<Long> expired = wheel.advance(seconds(10 * SLOTS));
+        assertEquals(3, expired.size());
+        assertTrue(expired.containsAll(List.of(1L, 2L, 3L)));
+        assertEquals(1, wheel.size());
+
+        // The wheel carries on from the new time
+        wheel.schedule(5L, seconds(10 * SLOTS + 10));
+        assertEquals(List.of(5L), wheel.advance(seconds(10 * SLOTS + 10)));
+        assertEquals(List.of(4L), wheel.advance(seconds(20_000)));
+    }
+
+    @Test
+    void renewedHoldIsNotReapedEarly() {
+        ReservationWheel wheel = new ReservationWheel(TICK, SLOTS, NOW);
+        wheel.schedule(1L, seconds(10));
+        // Renewed into another slot before expiring
+        wheel.advance(seconds(5));
+        wheel.schedule(1L, seconds(310));
+
+        assertTrue(wheel.advance(seconds(10)).isEmpty());
+        assertTrue(wheel.advance(seconds(309)).isEmpty());
+        assertEquals(1, wheel.size());
+        assertEquals(List.of(1L), wheel.advance(seconds(310)));
+    }
+
+    @Test
+    void holdAlreadyExpiredFiresOnNextAdvance() {
+        ReservationWheel wheel = new ReservationWheel(TICK, SLOTS, NOW);
+        wheel.schedule(1L, seconds(-30));
+
+        assertEquals(List.of(1L), wheel.advance(seconds(1)));
+    }
+}
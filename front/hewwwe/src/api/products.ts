@@ -31,3 +31,9 @@ export const deleteProduct = (id: number) => api.delete(`/api/products/${id}`);
 
 // Search for products by keyword (searches in name and description)
 export const searchProducts = (query: string) => api.get<Product[]>(`/api/products/search?keyword=${encodeURIComponent(query)}`);
+
+// Fetch one page of available products (cursor-based, newest first)
+export const getProductsPage = (cursor?: string, size = 20) =>
+  api.get<{ content: Product[]; nextCursor: string | null; hasNext: boolean }>('/api/products/page', {
+    params: { cursor, size },
+  });